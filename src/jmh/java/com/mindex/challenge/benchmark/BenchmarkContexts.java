@@ -0,0 +1,33 @@
+package com.mindex.challenge.benchmark;
+
+import com.mindex.challenge.ChallengeApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts the application without a web server against the embedded MongoServer from MongoConfig
+ */
+final class BenchmarkContexts {
+
+    private BenchmarkContexts() {
+    }
+
+    static ConfigurableApplicationContext start(Path seed, String... properties) {
+        List<String> allProperties = new ArrayList<>(List.of(
+                "bootstrap.location=" + seed.toUri(),
+                // per call debug logging would dominate the measurements
+                "logging.level.com.mindex=INFO"));
+        allProperties.addAll(List.of(properties));
+
+        return new SpringApplicationBuilder(ChallengeApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties(allProperties.toArray(new String[0]))
+                .run();
+    }
+}
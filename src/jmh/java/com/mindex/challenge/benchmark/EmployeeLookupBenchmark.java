@@ -0,0 +1,71 @@
+package com.mindex.challenge.benchmark;
+
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.service.EmployeeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * getEmployee against the in-memory MongoServer backend from MongoConfig, with and without the employee cache
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EmployeeLookupBenchmark {
+    private static final int EMPLOYEES = 10000;
+
+    // 0 disables the employee cache
+    @Param({"0", "10000"})
+    public int cacheSize;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeService employeeService;
+    private EmployeeRepository employeeRepository;
+
+    @State(Scope.Thread)
+    public static class Ids {
+        // fixed seed so every run looks up the same sequence of employees
+        private final SplittableRandom random = new SplittableRandom(42);
+
+        String next() {
+            return SyntheticOrg.employeeId(random.nextInt(EMPLOYEES));
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void startApplication() throws IOException {
+        context = BenchmarkContexts.start(SyntheticOrg.writeSeedFile(SyntheticOrg.Shape.BALANCED, EMPLOYEES),
+                "employee.cache.maximum-size=" + cacheSize);
+        employeeService = context.getBean(EmployeeService.class);
+        employeeRepository = context.getBean(EmployeeRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public Employee serviceGetEmployee(Ids ids) {
+        return employeeService.getEmployee(ids.next());
+    }
+
+    @Benchmark
+    public Employee repositoryFindByEmployeeId(Ids ids) {
+        return employeeRepository.findByEmployeeId(ids.next());
+    }
+}
@@ -0,0 +1,54 @@
+package com.mindex.challenge.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of an Employee with a growing list of nested directReports
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EmployeeSerializationBenchmark {
+
+    @Param({"0", "10", "200"})
+    public int directReports;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Employee employee;
+    private byte[] json;
+
+    @Setup(Level.Trial)
+    public void createEmployee() throws IOException {
+        employee = SyntheticOrg.generate(SyntheticOrg.Shape.FANOUT, directReports + 1).get(0);
+        Compensation compensation = new Compensation();
+        compensation.setSalary(new BigDecimal("50000"));
+        compensation.setEffectiveDate("01-01-2024");
+        employee.setCompensation(compensation);
+        json = objectMapper.writeValueAsBytes(employee);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(employee);
+    }
+
+    @Benchmark
+    public Employee deserialize() throws IOException {
+        return objectMapper.readValue(json, Employee.class);
+    }
+}
@@ -0,0 +1,58 @@
+package com.mindex.challenge.benchmark;
+
+import com.mindex.challenge.service.impl.OrgGraphIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Report counting through the in-memory index that backs getEmployeeReports, on org charts too large to seed
+ * into the embedded database for every run
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrgGraphIndexBenchmark {
+
+    @Param({"CHAIN", "FANOUT", "BALANCED"})
+    public SyntheticOrg.Shape shape;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private OrgGraphIndex index;
+
+    @Setup(Level.Trial)
+    public void buildIndex() {
+        index = new OrgGraphIndex();
+        index.build(SyntheticOrg.generate(shape, size).stream());
+    }
+
+    @State(Scope.Benchmark)
+    public static class ColdCounts {
+        @Setup(Level.Invocation)
+        public void clear(OrgGraphIndexBenchmark benchmark) {
+            benchmark.index.clearReportCounts();
+        }
+    }
+
+    // walks the whole subtree below the root
+    @Benchmark
+    public int countReportsCold(ColdCounts coldCounts) {
+        return index.countReports(SyntheticOrg.rootId());
+    }
+
+    // repeat reads answered from the memoized count
+    @Benchmark
+    public int countReportsMemoized() {
+        return index.countReports(SyntheticOrg.rootId());
+    }
+}
@@ -0,0 +1,56 @@
+package com.mindex.challenge.benchmark;
+
+import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.service.EmployeeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EmployeeServiceImpl.getEmployeeReports end to end, for every traversal against the embedded database
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReportTraversalBenchmark {
+
+    @Param({"INDEX", "BATCHED", "RECURSIVE", "PARALLEL"})
+    public String traversal;
+
+    @Param({"CHAIN", "FANOUT", "BALANCED"})
+    public SyntheticOrg.Shape shape;
+
+    @Param({"1000"})
+    public int size;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeService employeeService;
+
+    @Setup(Level.Trial)
+    public void startApplication() throws IOException {
+        context = BenchmarkContexts.start(SyntheticOrg.writeSeedFile(shape, size),
+                "employee.reports.traversal=" + traversal.toLowerCase());
+        employeeService = context.getBean(EmployeeService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public ReportingStructure getEmployeeReports() {
+        return employeeService.getEmployeeReports(SyntheticOrg.rootId());
+    }
+}
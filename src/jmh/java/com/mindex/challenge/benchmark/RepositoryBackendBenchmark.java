@@ -0,0 +1,76 @@
+package com.mindex.challenge.benchmark;
+
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.Employee;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EmployeeRepository calls through the Mongo driver and the embedded MongoServer, against the same calls on the
+ * in-process repository of the inprocess profile
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RepositoryBackendBenchmark {
+    private static final int EMPLOYEES = 10000;
+
+    @Param({"default", "inprocess"})
+    public String profile;
+
+    private ConfigurableApplicationContext context;
+    private EmployeeRepository employeeRepository;
+
+    @State(Scope.Thread)
+    public static class Ids {
+        // fixed seed so every run touches the same sequence of employees
+        private final SplittableRandom random = new SplittableRandom(42);
+
+        String next() {
+            return SyntheticOrg.employeeId(random.nextInt(EMPLOYEES));
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void startApplication() throws IOException {
+        context = BenchmarkContexts.start(SyntheticOrg.writeSeedFile(SyntheticOrg.Shape.BALANCED, EMPLOYEES),
+                "spring.profiles.active=" + profile);
+        employeeRepository = context.getBean(EmployeeRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public Employee findByEmployeeId(Ids ids) {
+        return employeeRepository.findByEmployeeId(ids.next());
+    }
+
+    @Benchmark
+    public Employee save(Ids ids) {
+        Employee employee = employeeRepository.findByEmployeeId(ids.next());
+        employee.setPosition("Benchmark Engineer");
+        return employeeRepository.save(employee);
+    }
+
+    @Benchmark
+    public List<Employee> findPageAfter(Ids ids) {
+        return employeeRepository.findPageAfter(ids.next(), 100);
+    }
+}
@@ -0,0 +1,79 @@
+package com.mindex.challenge.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.data.Employee;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic org charts of a given shape and size for the benchmarks
+ */
+public final class SyntheticOrg {
+    // span of control of every manager in a balanced org
+    private static final int BALANCED_SPAN = 8;
+
+    public enum Shape {
+        // every employee reports to the previous one
+        CHAIN,
+        // everyone reports directly to the root
+        FANOUT,
+        // every manager has the same number of direct reports
+        BALANCED
+    }
+
+    private SyntheticOrg() {
+    }
+
+    public static String employeeId(int position) {
+        return String.format("employee-%07d", position);
+    }
+
+    // the root of every generated org is the first employee
+    public static String rootId() {
+        return employeeId(0);
+    }
+
+    public static List<Employee> generate(Shape shape, int size) {
+        List<Employee> employees = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Employee employee = new Employee();
+            employee.setEmployeeId(employeeId(i));
+            employee.setFirstName("First" + i);
+            employee.setLastName("Last" + i);
+            employee.setPosition(i == 0 ? "Chief Executive" : "Developer");
+            employee.setDepartment("Engineering");
+            employees.add(employee);
+
+            if (i > 0) {
+                Employee manager = employees.get(managerOf(shape, i));
+                if (manager.getDirectReports() == null) {
+                    manager.setDirectReports(new ArrayList<>());
+                }
+                Employee report = new Employee();
+                report.setEmployeeId(employee.getEmployeeId());
+                manager.getDirectReports().add(report);
+            }
+        }
+        return employees;
+    }
+
+    // writes the org as an employee_database.json compatible seed file
+    public static Path writeSeedFile(Shape shape, int size) throws IOException {
+        Path seed = Files.createTempFile("org-" + shape.name().toLowerCase() + "-" + size, ".json");
+        seed.toFile().deleteOnExit();
+        new ObjectMapper().writeValue(seed.toFile(), generate(shape, size));
+        return seed;
+    }
+
+    private static int managerOf(Shape shape, int position) {
+        return switch (shape) {
+            case CHAIN -> position - 1;
+            case FANOUT -> 0;
+            case BALANCED -> (position - 1) / BALANCED_SPAN;
+        };
+    }
+}
@@ -0,0 +1,237 @@
+package com.mindex.challenge.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mindex.challenge.ChallengeApplication;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed loop load test of every EmployeeController endpoint. The application is started in process on a random
+ * port against the embedded MongoServer, seeded with a generated or given dataset, and a pool of client threads
+ * replays a weighted mix of requests. Throughput and latency percentiles are reported per endpoint.
+ *
+ * Options: --dataset (seed file, generated when missing), --headcount, --depth, --span, --compensationCoverage,
+ * --profile (reactive to load test the WebFlux stack), --threads, --warmupSeconds, --durationSeconds, --seed and
+ * --mix (for example get=50,numberOfReports=15,getCompensation=10,update=10,createCompensation=10,create=5)
+ */
+public final class LoadDriver {
+    private static final String DEFAULT_MIX = "get=50,numberOfReports=15,getCompensation=10,update=10,createCompensation=10,create=5";
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    enum Operation {
+        create, get, update, numberOfReports, createCompensation, getCompensation
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final String baseUrl;
+    private final Operation[] weightedOperations;
+    private List<JsonNode> employees;
+
+    private LoadDriver(String baseUrl, Operation[] weightedOperations) {
+        this.baseUrl = baseUrl;
+        this.weightedOperations = weightedOperations;
+        resetStatistics();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options(args);
+        Path dataset = Path.of(options.get("dataset", "build/loadtest/employee_database.json"));
+        if (!Files.exists(dataset)) {
+            new OrgGenerator(options.getInt("headcount", 10000), options.getInt("depth", 6), options.getInt("span", 8),
+                    options.getDouble("compensationCoverage", 0.5), options.getLong("seed", 42)).write(dataset);
+        }
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ChallengeApplication.class)
+                .profiles(options.get("profile", "default"))
+                .properties("server.port=0",
+                        "bootstrap.location=" + dataset.toUri(),
+                        "logging.level.com.mindex=INFO")
+                .run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String baseUrl = "http://localhost:" + port;
+
+            LoadDriver driver = new LoadDriver(baseUrl, parseMix(options.get("mix", DEFAULT_MIX)));
+            driver.employees = driver.listEmployees();
+            System.out.printf("Loaded %d employees from %s, application listening on %s%n", driver.employees.size(), dataset, baseUrl);
+
+            int threads = options.getInt("threads", 8);
+            long seed = options.getLong("seed", 42);
+            driver.run(threads, options.getInt("warmupSeconds", 5), seed);
+            driver.resetStatistics();
+            long elapsedNanos = driver.run(threads, options.getInt("durationSeconds", 30), seed + 1);
+            driver.report(elapsedNanos);
+        }
+    }
+
+    // every operation appears in the array as many times as its weight, so picking a random element follows the mix
+    private static Operation[] parseMix(String mix) {
+        List<Operation> operations = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.split("=");
+            Operation operation = Operation.valueOf(parts[0].trim());
+            for (int i = Integer.parseInt(parts[1].trim()); i > 0; i--) {
+                operations.add(operation);
+            }
+        }
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("The request mix is empty: " + mix);
+        }
+        return operations.toArray(new Operation[0]);
+    }
+
+    // pages through GET /employee to learn the ids and documents of the seeded employees
+    private List<JsonNode> listEmployees() throws IOException, InterruptedException {
+        List<JsonNode> result = new ArrayList<>();
+        String after = null;
+        do {
+            String url = baseUrl + "/employee?limit=1000" + (after == null ? "" : "&after=" + after);
+            JsonNode page = objectMapper.readTree(send(HttpRequest.newBuilder(URI.create(url)).GET()).body());
+            page.get("employees").forEach(result::add);
+            after = page.hasNonNull("next") ? page.get("next").asText() : null;
+        } while (after != null);
+        return result;
+    }
+
+    private void resetStatistics() {
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    // runs the mix on the given number of threads for the given time, returns the elapsed nanoseconds
+    private long run(int threads, int seconds, long seed) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+        SplittableRandom seeds = new SplittableRandom(seed);
+        for (int i = 0; i < threads; i++) {
+            SplittableRandom random = seeds.split();
+            executor.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    execute(weightedOperations[random.nextInt(weightedOperations.length)], random);
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+        return System.nanoTime() - start;
+    }
+
+    private void execute(Operation operation, SplittableRandom random) {
+        JsonNode employee = employees.get(random.nextInt(employees.size()));
+        String id = employee.get("employeeId").asText();
+        try {
+            HttpRequest.Builder request = switch (operation) {
+                case create -> post("/employee", newEmployee(random));
+                case get -> HttpRequest.newBuilder(uri("/employee/" + id)).GET();
+                case update -> put("/employee/" + id, updatedEmployee(employee, random));
+                case numberOfReports -> HttpRequest.newBuilder(uri("/employee/numberOfReports/" + id)).GET();
+                case createCompensation -> post("/employee/compensation/" + id, newCompensation(random));
+                case getCompensation -> HttpRequest.newBuilder(uri("/employee/compensation/" + id)).GET();
+            };
+            long start = System.nanoTime();
+            HttpResponse<String> response = send(request);
+            long elapsed = System.nanoTime() - start;
+            latencies.get(operation).recordValue(Math.min(elapsed, HIGHEST_TRACKABLE_NANOS));
+            // employees without compensation legitimately answer getCompensation with 404
+            if (response.statusCode() >= 500 || (response.statusCode() >= 400 && operation != Operation.getCompensation)) {
+                errors.get(operation).increment();
+            }
+        } catch (IOException e) {
+            errors.get(operation).increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return httpClient.send(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private HttpRequest.Builder post(String path, JsonNode body) throws IOException {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+    }
+
+    private HttpRequest.Builder put(String path, JsonNode body) throws IOException {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+    }
+
+    private ObjectNode newEmployee(SplittableRandom random) {
+        ObjectNode employee = objectMapper.createObjectNode();
+        employee.put("firstName", "Load");
+        employee.put("lastName", "Test" + random.nextInt(1000000));
+        employee.put("position", "Developer");
+        employee.put("department", "Engineering");
+        return employee;
+    }
+
+    // the listed document with a new position, so updates keep the reporting structure intact
+    private ObjectNode updatedEmployee(JsonNode employee, SplittableRandom random) {
+        ObjectNode updated = employee.deepCopy();
+        updated.put("position", "Developer " + (1 + random.nextInt(5)));
+        return updated;
+    }
+
+    private ObjectNode newCompensation(SplittableRandom random) {
+        ObjectNode compensation = objectMapper.createObjectNode();
+        compensation.put("salary", 40000 + 1000 * random.nextInt(210));
+        compensation.put("effectiveDate", "01-01-2025");
+        return compensation;
+    }
+
+    private void report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%n%-20s %10s %10s %8s %10s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "req/s", "errors", "p50 ms", "p95 ms", "p99 ms", "p999 ms", "max ms");
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = latencies.get(operation);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            System.out.printf("%-20s %10d %10.1f %8d %10.3f %10.3f %10.3f %10.3f %10.3f%n",
+                    operation, histogram.getTotalCount(), histogram.getTotalCount() / seconds, errors.get(operation).sum(),
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(95)),
+                    millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()));
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
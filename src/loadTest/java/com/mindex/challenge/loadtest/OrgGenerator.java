@@ -0,0 +1,124 @@
+package com.mindex.challenge.loadtest;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Generates employee_database.json compatible datasets. The org is grown breadth first from a single root: every
+ * manager above the maximum depth gets a random number of direct reports averaging the span of control, until the
+ * headcount is reached. Output is written as a stream, so only a few ints per employee are held in memory.
+ *
+ * Options: --headcount, --depth, --span, --compensationCoverage (0 to 1), --seed, --output
+ */
+public final class OrgGenerator {
+    private static final String[] FIRST_NAMES = {"John", "Paul", "George", "Ringo", "Pete", "Yoko", "Linda", "Cynthia", "Maureen", "Pattie"};
+    private static final String[] LAST_NAMES = {"Lennon", "McCartney", "Harrison", "Starr", "Best", "Ono", "Eastman", "Powell", "Cox", "Boyd"};
+    private static final String[] DEPARTMENTS = {"Engineering", "Finance", "Sales", "Marketing", "Operations", "Human Resources"};
+    private static final String[] POSITIONS = {"Chief Executive", "Vice President", "Director", "Manager", "Lead"};
+    private static final String INDIVIDUAL_POSITION = "Developer";
+
+    private final int headcount;
+    private final int maxDepth;
+    private final int span;
+    private final double compensationCoverage;
+    private final long seed;
+
+    public OrgGenerator(int headcount, int maxDepth, int span, double compensationCoverage, long seed) {
+        if (headcount < 1 || maxDepth < 0 || span < 1 || compensationCoverage < 0 || compensationCoverage > 1) {
+            throw new IllegalArgumentException("Invalid org generator settings");
+        }
+        this.headcount = headcount;
+        this.maxDepth = maxDepth;
+        this.span = span;
+        this.compensationCoverage = compensationCoverage;
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Options options = new Options(args);
+        OrgGenerator generator = new OrgGenerator(
+                options.getInt("headcount", 10000),
+                options.getInt("depth", 6),
+                options.getInt("span", 8),
+                options.getDouble("compensationCoverage", 0.5),
+                options.getLong("seed", 42));
+        Path output = Path.of(options.get("output", "build/loadtest/employee_database.json"));
+        generator.write(output);
+        System.out.printf("Wrote %d employees to %s%n", generator.headcount, output.toAbsolutePath());
+    }
+
+    public static String employeeId(int position) {
+        return String.format("employee-%08d", position);
+    }
+
+    public int getHeadcount() {
+        return headcount;
+    }
+
+    public void write(Path output) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+
+        // employees are numbered breadth first, so the reports of a manager are always a contiguous range
+        int[] firstReport = new int[headcount];
+        int[] reportCount = new int[headcount];
+        int[] depth = new int[headcount];
+        int next = 1;
+        for (int manager = 0; manager < headcount && next < headcount; manager++) {
+            if (manager == next) {
+                throw new IllegalArgumentException("A headcount of " + headcount + " does not fit in depth " + maxDepth + " with span " + span);
+            }
+            if (depth[manager] == maxDepth) {
+                continue;
+            }
+            int reports = Math.min(headcount - next, 1 + random.nextInt(2 * span - 1));
+            firstReport[manager] = next;
+            reportCount[manager] = reports;
+            Arrays.fill(depth, next, next + reports, depth[manager] + 1);
+            next += reports;
+        }
+        if (next < headcount) {
+            throw new IllegalArgumentException("A headcount of " + headcount + " does not fit in depth " + maxDepth + " with span " + span);
+        }
+
+        output.toAbsolutePath().getParent().toFile().mkdirs();
+        try (JsonGenerator json = new JsonFactory().createGenerator(output.toFile(), JsonEncoding.UTF8)) {
+            json.writeStartArray();
+            for (int i = 0; i < headcount; i++) {
+                writeEmployee(json, random, i, depth[i], firstReport[i], reportCount[i]);
+            }
+            json.writeEndArray();
+        }
+    }
+
+    private void writeEmployee(JsonGenerator json, SplittableRandom random, int position, int depth, int firstReport,
+                               int reportCount) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("employeeId", employeeId(position));
+        json.writeStringField("firstName", FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]);
+        json.writeStringField("lastName", LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+        json.writeStringField("position", reportCount == 0 ? INDIVIDUAL_POSITION : POSITIONS[Math.min(depth, POSITIONS.length - 1)]);
+        json.writeStringField("department", DEPARTMENTS[random.nextInt(DEPARTMENTS.length)]);
+        if (random.nextDouble() < compensationCoverage) {
+            json.writeObjectFieldStart("compensation");
+            json.writeNumberField("salary", 40000 + 1000 * random.nextInt(210));
+            json.writeStringField("effectiveDate", "01-01-2024");
+            json.writeEndObject();
+        }
+        if (reportCount > 0) {
+            json.writeArrayFieldStart("directReports");
+            for (int report = firstReport; report < firstReport + reportCount; report++) {
+                json.writeStartObject();
+                json.writeStringField("employeeId", employeeId(report));
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+        }
+        json.writeEndObject();
+    }
+}
@@ -1,18 +1,72 @@
 package com.mindex.challenge;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.mindex.challenge.dao.EmployeeIdFilter;
 import com.mindex.challenge.dao.EmployeeRepository;
 import com.mindex.challenge.data.Employee;
-import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
+/**
+ * Loads the seed employees at startup. The seed file is streamed token by token and handed to a small pool of
+ * insert workers in fixed size batches, so memory stays bounded by the number of batches in flight rather than
+ * by the size of the file. A persistent store that already holds employees is left as it is.
+ *
+ * When a binary Smile snapshot written by {@link EmployeeSnapshotWriter} exists it is memory mapped and loaded
+ * instead of the JSON seed, which skips the text parsing that dominates startup on large datasets. A snapshot older
+ * than the JSON seed is ignored, since it was written before the seed last changed.
+ *
+ * Either way every id in the store ends up in the {@link EmployeeIdFilter}, which is marked ready once the load is done.
+ *
+ * The load runs once every singleton has been created rather than in a @PostConstruct callback. The insert workers
+ * look up beans through the repository, and during bean creation the calling thread holds the singleton lock they
+ * would wait on. It still runs before the web server starts, so requests never see a partly loaded store.
+ */
 @Component
-public class DataBootstrap {
-    private static final String DATASTORE_LOCATION = "/static/employee_database.json";
+public class DataBootstrap implements SmartInitializingSingleton {
+    private static final Logger LOG = LoggerFactory.getLogger(DataBootstrap.class);
+    // repeated values such as departments and positions are written once and referenced after that
+    static final SmileFactory SNAPSHOT_FACTORY = SmileFactory.builder()
+            .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+            .build();
+
+    @Value("${bootstrap.location:classpath:/static/employee_database.json}")
+    private Resource datastoreLocation;
+
+    @Value("${bootstrap.snapshot:data/employees.smile}")
+    private String snapshotLocation;
+
+    @Value("${bootstrap.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${bootstrap.workers:4}")
+    private int workers;
 
     @Autowired
     private EmployeeRepository employeeRepository;
@@ -20,20 +74,145 @@ public class DataBootstrap {
     @Autowired
     private ObjectMapper objectMapper;
 
-    @PostConstruct
-    public void init() {
-        InputStream inputStream = this.getClass().getResourceAsStream(DATASTORE_LOCATION);
+    @Autowired
+    private EmployeeIdFilter employeeIdFilter;
 
-        Employee[] employees = null;
+    @Override
+    public void afterSingletonsInstantiated() {
+        long existing = employeeRepository.count();
+        if (existing > 0) {
+            LOG.info("Skipping the seed load, the employee store already holds {} employees", existing);
+            try (Stream<Employee> employees = employeeRepository.streamReportingLines()) {
+                employees.forEach(employee -> employeeIdFilter.add(employee.getEmployeeId()));
+            }
+            employeeIdFilter.markReady();
+            return;
+        }
+
+        long start = System.nanoTime();
+        long loaded;
+        String source;
 
+        // an empty location turns snapshots off
+        Path snapshot = snapshotLocation.isBlank() ? null : Path.of(snapshotLocation);
         try {
-            employees = objectMapper.readValue(inputStream, Employee[].class);
+            if (snapshot != null && Files.isRegularFile(snapshot) && !isStale(snapshot)) {
+                source = "snapshot " + snapshot.toAbsolutePath();
+                LOG.info("Loading employees from {} instead of {}", source, datastoreLocation.getDescription());
+                loaded = loadSnapshot(snapshot, source);
+            } else {
+                source = datastoreLocation.getDescription();
+                try (InputStream inputStream = datastoreLocation.getInputStream();
+                     JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+                    loaded = load(parser, source);
+                }
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
 
-        for (Employee employee : employees) {
-            employeeRepository.insert(employee);
+        employeeIdFilter.markReady();
+
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        LOG.info("Loaded {} employees from {} in {} ms ({} employees/s)",
+                loaded, source, elapsedMillis, loaded * 1000 / elapsedMillis);
+    }
+
+    // method to check whether the seed has changed since the snapshot was written, a seed whose modification time
+    // cannot be read never makes the snapshot stale
+    private boolean isStale(Path snapshot) throws IOException {
+        long seedModified;
+        try {
+            seedModified = datastoreLocation.lastModified();
+        } catch (IOException e) {
+            return false;
+        }
+        if (seedModified <= Files.getLastModifiedTime(snapshot).toMillis()) {
+            return false;
+        }
+        LOG.warn("Ignoring snapshot {}, {} has changed since it was written. Regenerate it with ./gradlew writeSnapshot",
+                snapshot.toAbsolutePath(), datastoreLocation.getDescription());
+        return true;
+    }
+
+    // method to load a snapshot through a memory mapping, a single mapping is limited to 2 GB so larger ones are streamed
+    private long loadSnapshot(Path snapshot, String source) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            InputStream inputStream = channel.size() <= Integer.MAX_VALUE
+                    ? new ByteBufferBackedInputStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()))
+                    : Channels.newInputStream(channel);
+            try (JsonParser parser = SNAPSHOT_FACTORY.createParser(inputStream)) {
+                return load(parser, source);
+            }
+        }
+    }
+
+    // method to stream the employees out of the parser and insert them in batches, returns the number loaded
+    private long load(JsonParser parser, String source) throws IOException {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IOException("Expected an array of employees in " + source);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        // at most two batches per worker are parsed but not yet written at any time
+        Semaphore batchesInFlight = new Semaphore(workers * 2);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        long loaded = 0;
+
+        try {
+            List<Employee> batch = new ArrayList<>(batchSize);
+            while (parser.nextToken() == JsonToken.START_OBJECT && failure.get() == null) {
+                batch.add(objectMapper.readValue(parser, Employee.class));
+                loaded++;
+                if (batch.size() == batchSize) {
+                    submit(executor, batchesInFlight, failure, batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                submit(executor, batchesInFlight, failure, batch);
+            }
+        } finally {
+            executor.shutdown();
+            awaitTermination(executor);
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return loaded;
+    }
+
+    private void submit(ExecutorService executor, Semaphore batchesInFlight, AtomicReference<RuntimeException> failure,
+                        List<Employee> batch) {
+        try {
+            batchesInFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        executor.execute(() -> {
+            try {
+                employeeRepository.insert(batch);
+                // the filter is not ready yet, so nobody relies on it until every batch is in, and an employee
+                // seeded without an id has been given one by now
+                batch.forEach(employee -> employeeIdFilter.add(employee.getEmployeeId()));
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                batchesInFlight.release();
+            }
+        });
+    }
+
+    private static void awaitTermination(ExecutorService executor) {
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOG.info("Waiting for the remaining employee batches to be written");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
         }
     }
 }
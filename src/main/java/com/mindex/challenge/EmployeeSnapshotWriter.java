@@ -0,0 +1,99 @@
+package com.mindex.challenge;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mindex.challenge.config.MongoConfig;
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.Employee;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Regenerates the binary snapshot that {@link DataBootstrap} prefers over the JSON seed. Start the application with
+ * --snapshot.write=path and it writes every employee in the live collection to the path and exits. The snapshot
+ * is written to a temporary file first and moved into place, so a failed write never leaves a truncated snapshot.
+ *
+ * The writer runs in a process of its own, so it only sees employees that outlive a restart. That needs the h2
+ * storage backend, on the memory backend or under the inprocess profile the process would just have loaded the seed
+ * and the snapshot would be the seed re-encoded, so the writer refuses to run there.
+ */
+@Component
+public class EmployeeSnapshotWriter implements ApplicationRunner {
+    private static final Logger LOG = LoggerFactory.getLogger(EmployeeSnapshotWriter.class);
+    private static final String WRITE_OPTION = "snapshot.write";
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Value("${mongo.storage.backend:memory}")
+    private MongoConfig.Storage storage;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        List<String> paths = args.getOptionValues(WRITE_OPTION);
+        if (paths == null || paths.isEmpty()) {
+            return;
+        }
+
+        if (storage != MongoConfig.Storage.H2 || context.getEnvironment().matchesProfiles("inprocess")) {
+            throw new IllegalStateException("Snapshots can only be written from the h2 storage backend, the "
+                    + storage.name().toLowerCase() + " backend only holds the seed in a fresh process."
+                    + " Run with --mongo.storage.backend=h2 and without the inprocess profile");
+        }
+        Path snapshot = Path.of(paths.get(0)).toAbsolutePath();
+        long written = write(snapshot);
+        LOG.info("Wrote {} employees to snapshot {}", written, snapshot);
+
+        System.exit(SpringApplication.exit(context));
+    }
+
+    // method to write every employee to the snapshot as a Smile array, returns the number written
+    public long write(Path snapshot) throws IOException {
+        Files.createDirectories(snapshot.getParent());
+        Path temporary = Files.createTempFile(snapshot.getParent(), snapshot.getFileName().toString(), ".tmp");
+        long written = 0;
+        try {
+            try (OutputStream outputStream = Files.newOutputStream(temporary);
+                 JsonGenerator generator = DataBootstrap.SNAPSHOT_FACTORY.createGenerator(outputStream);
+                 Stream<Employee> employees = employeeRepository.streamAll()) {
+                generator.writeStartArray();
+                // flushing after every employee would turn each one into a separate write to the file
+                ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+                Iterator<Employee> iterator = employees.iterator();
+                while (iterator.hasNext()) {
+                    writer.writeValue(generator, iterator.next());
+                    written++;
+                }
+                generator.writeEndArray();
+            }
+            Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        return written;
+    }
+}
@@ -1,34 +1,109 @@
 package com.mindex.challenge.config;
 
 import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.metrics.DatabaseRoundTripListener;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.h2.H2Backend;
 import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsCommandListener;
+import org.h2.mvstore.MVStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.mongodb.config.AbstractMongoClientConfiguration;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 import org.springframework.lang.NonNull;
 
+import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 
+// the inprocess profile keeps employees on the heap, see InMemoryEmployeeRepository, and needs no server
+@Profile("!inprocess")
 @EnableMongoRepositories(basePackageClasses = EmployeeRepository.class)
 @Configuration
 public class MongoConfig extends AbstractMongoClientConfiguration {
+    private static final Logger LOG = LoggerFactory.getLogger(MongoConfig.class);
+    static final String DATABASE_NAME = "test";
+
+    public enum Storage {
+        // keep everything on the heap, every start is a cold start that re-seeds the data
+        MEMORY,
+        // keep the data in an H2 MVStore file, a restart reopens the file and skips the seed load
+        H2
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${mongo.storage.backend:memory}")
+    private Storage storage;
+
+    @Value("${mongo.storage.path:data/employees.mv}")
+    private String storagePath;
+
+    @Value("${mongo.storage.flush-interval:1s}")
+    private Duration storageFlushInterval;
 
     @Override
     @NonNull
     protected String getDatabaseName() {
-        return "test";
+        return DATABASE_NAME;
+    }
+
+    // the embedded server is a bean of its own so the blocking and reactive clients can share it,
+    // shutting it down closes the backend which commits any writes the h2 store has not flushed yet
+    @Bean(destroyMethod = "shutdownNow")
+    public MongoServer mongoServer() {
+        MongoServer server = new MongoServer(switch (storage) {
+            case MEMORY -> new MemoryBackend();
+            case H2 -> new H2Backend(openStore());
+        });
+        server.bind();
+        return server;
+    }
+
+    // method to open or create the MVStore file, uncommitted writes are flushed to disk after the flush interval
+    private MVStore openStore() {
+        Path path = Path.of(storagePath).toAbsolutePath();
+        try {
+            Files.createDirectories(path.getParent());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        LOG.info("Opening employee store {}, writes are flushed every {}", path, storageFlushInterval);
+        MVStore store = new MVStore.Builder()
+                .fileName(path.toString())
+                .open();
+        store.setAutoCommitDelay(Math.toIntExact(storageFlushInterval.toMillis()));
+        return store;
     }
 
     @Override
     @NonNull
     public MongoClient mongoClient() {
-        MongoServer server = new MongoServer(new MemoryBackend());
-        InetSocketAddress serverAddress = server.bind();
+        return MongoClients.create(clientSettings(mongoServer(), meterRegistry));
+    }
+
+    static MongoClientSettings clientSettings(MongoServer server, MeterRegistry meterRegistry) {
+        InetSocketAddress serverAddress = server.getLocalAddress();
         String mongoConnectionString = String.format("mongodb://%s:%d", serverAddress.getHostName(), serverAddress.getPort());
-        return MongoClients.create(mongoConnectionString);
+        return MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(mongoConnectionString))
+                .addCommandListener(new MongoMetricsCommandListener(meterRegistry))
+                .addCommandListener(new DatabaseRoundTripListener())
+                .build();
     }
 }
 
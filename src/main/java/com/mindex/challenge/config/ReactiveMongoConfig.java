@@ -0,0 +1,38 @@
+package com.mindex.challenge.config;
+
+import com.mindex.challenge.reactive.ReactiveEmployeeRepository;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.SimpleReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
+
+/**
+ * Reactive driver for the reactive profile, connected to the same embedded server and database as the blocking
+ * client in {@link MongoConfig} and sharing its mapping, so both stacks see the same seeded data. This does not
+ * extend AbstractReactiveMongoConfiguration because its mapping beans would clash with the blocking ones.
+ */
+@Profile("reactive")
+@EnableReactiveMongoRepositories(basePackageClasses = ReactiveEmployeeRepository.class)
+@Configuration
+public class ReactiveMongoConfig {
+
+    @Bean(destroyMethod = "close")
+    public MongoClient reactiveMongoClient(MongoServer mongoServer, MeterRegistry meterRegistry) {
+        return MongoClients.create(MongoConfig.clientSettings(mongoServer, meterRegistry));
+    }
+
+    @Bean
+    public ReactiveMongoTemplate reactiveMongoTemplate(MongoClient reactiveMongoClient,
+                                                       MappingMongoConverter mappingMongoConverter) {
+        return new ReactiveMongoTemplate(
+                new SimpleReactiveMongoDatabaseFactory(reactiveMongoClient, MongoConfig.DATABASE_NAME),
+                mappingMongoConverter);
+    }
+}
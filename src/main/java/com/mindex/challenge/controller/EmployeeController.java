@@ -1,28 +1,77 @@
 package com.mindex.challenge.controller;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.data.BulkItemResult;
 import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.CompensationRollup;
 import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeePage;
+import com.mindex.challenge.data.HierarchyNode;
+import com.mindex.challenge.data.MultiGetResult;
 import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.exception.EmployeeNotFoundException;
+import com.mindex.challenge.exception.EmployeeVersionConflictException;
+import com.mindex.challenge.exception.InvalidDirectReportsException;
 import com.mindex.challenge.service.EmployeeService;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+@Profile("!reactive")
 @RestController
 public class EmployeeController {
     private static final Logger LOG = LoggerFactory.getLogger(EmployeeController.class);
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    // number of streamed lines written between flushes, the first line is always flushed straight away
+    private static final int STREAM_FLUSH_INTERVAL = 256;
+    private static final Set<String> VERSION_FIELD = Set.of("version");
 
     @Autowired
     private EmployeeService employeeService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private ObjectMapper projectionMapper;
+
+    @PostConstruct
+    public void init() {
+        projectionMapper = objectMapper.copy().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    }
+
     /**
      * Create Employee request
      * @param employee
@@ -32,6 +81,9 @@ public class EmployeeController {
         LOG.debug("Received employee create request for [{}]", employee);
         try {
             return employeeService.createEmployee(employee);
+        }catch (InvalidDirectReportsException e){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Error creating Employee. Reason: " + e);
         }catch (Exception e){
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
                     "Error creating Employee. Reason: " + e);
@@ -39,29 +91,174 @@ public class EmployeeController {
     }
 
     /**
-     * Get Employee by id request
+     * Get Employee by id request. Full reads carry the employee version as their ETag and answer a matching
+     * If-None-Match with 304 after reading only the version
      * @param id
+     * @param ifNoneMatch optional entity tags the client already holds
      */
     @GetMapping("/employee/{id}")
-    public Employee getEmployee(@PathVariable String id) {
+    public ResponseEntity<Employee> getEmployee(@PathVariable String id,
+                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         LOG.debug("Received get employee request for id [{}]", id);
         try {
-            return employeeService.getEmployee(id);
+            if (ifNoneMatch != null) {
+                Optional<Employee> versioned = employeeService.findEmployee(id, VERSION_FIELD);
+                if (versioned.isEmpty()) {
+                    return notFound(id);
+                }
+                if (matchesAny(ifNoneMatch, versioned.get().getVersion())) {
+                    return notModified(versioned.get().getVersion());
+                }
+            }
+            Optional<Employee> employee = employeeService.findEmployee(id);
+            if (employee.isEmpty()) {
+                return notFound(id);
+            }
+            return withETag(ResponseEntity.ok(), employee.get().getVersion()).body(employee.get());
+        }catch(IllegalArgumentException e){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Cannot read employee with id: " + id + " reason: " + e);
         }catch(RuntimeException e){
             throw new ResponseStatusException(HttpStatus.NOT_FOUND,
                     "Cannot find employee with id: " + id + " reason: " +e);
         }
     }
 
+    /**
+     * Get only some fields of an Employee by id, the fields that were not asked for are left out of the response
+     * @param id
+     * @param fields comma separated list of the fields to return
+     */
+    @GetMapping(value = "/employee/{id}", params = "fields")
+    public ResponseEntity<JsonNode> getEmployeeFields(@PathVariable String id, @RequestParam Set<String> fields) {
+        LOG.debug("Received get employee fields {} request for id [{}]", fields, id);
+        try {
+            return employeeService.findEmployee(id, fields)
+                    .map(employee -> ResponseEntity.ok(projected(employee)))
+                    .orElseGet(() -> notFound(id));
+        }catch(IllegalArgumentException e){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Cannot read employee with id: " + id + " reason: " + e);
+        }
+    }
+
+    /**
+     * List Employees in id order, one page at a time
+     * @param after optional id of the last employee on the previous page
+     * @param limit maximum number of employees on the page
+     */
+    @GetMapping(value = "/employee", params = {"!department", "!position", "!namePrefix", "!ids"})
+    public EmployeePage getEmployeePage(@RequestParam(required = false) String after,
+                                        @RequestParam(defaultValue = "100") int limit) {
+        LOG.debug("Received list employees request after id [{}]", after);
+        try {
+            return employeeService.getEmployeePage(after, limit);
+        }catch(IllegalArgumentException e){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Cannot list employees. Reason: " + e);
+        }
+    }
+
+    /**
+     * Find Employees by department and position, or by last name prefix
+     * @param department optional exact department
+     * @param position optional exact position
+     * @param namePrefix optional case sensitive last name prefix, cannot be combined with department or position
+     * @param page zero based page number
+     * @param size page size
+     */
+    @GetMapping("/employee")
+    public Page<Employee> findEmployees(@RequestParam(required = false) String department,
+                                        @RequestParam(required = false) String position,
+                                        @RequestParam(required = false) String namePrefix,
+                                        @RequestParam(defaultValue = "0") int page,
+                                        @RequestParam(defaultValue = "100") int size) {
+        LOG.debug("Received find employees request for department [{}], position [{}] and name prefix [{}]", department, position, namePrefix);
+        try {
+            return employeeService.findEmployees(department, position, namePrefix, PageRequest.of(page, size));
+        }catch(IllegalArgumentException e){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Cannot find employees. Reason: " + e);
+        }
+    }
+
+    /**
+     * Export every Employee as newline delimited JSON, read from a database cursor as it is written
+     */
+    @GetMapping(value = "/employee/_export", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportEmployees() {
+        LOG.debug("Received export employees request");
+
+        StreamingResponseBody body = outputStream -> writeNdjson(employeeService.exportEmployees(), outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(body);
+    }
+
+    /**
+     * Get Employees by ids request
+     * @param ids comma separated list of employee ids, unknown ids are left out of the result
+     */
+    @GetMapping(value = "/employee", params = "ids")
+    public List<Employee> getEmployees(@RequestParam List<String> ids) {
+        LOG.debug("Received get employees request for {} ids", ids.size());
+        return employeeService.getEmployees(ids, null);
+    }
+
+    /**
+     * Get only some fields of Employees by ids, the fields that were not asked for are left out of the response
+     * @param ids comma separated list of employee ids, unknown ids are left out of the result
+     * @param fields comma separated list of the fields to return
+     */
+    @GetMapping(value = "/employee", params = {"ids", "fields"})
+    public List<JsonNode> getEmployeesFields(@RequestParam List<String> ids, @RequestParam Set<String> fields) {
+        LOG.debug("Received get employees fields {} request for {} ids", fields, ids.size());
+        try {
+            return employeeService.getEmployees(ids, fields).stream().map(this::projected).toList();
+        }catch(IllegalArgumentException e){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Cannot read employees. Reason: " + e);
+        }
+    }
+
+    // method to write a projected employee without the fields that were left out, which are null like fields that
+    // are unset. Full reads keep writing unset fields as null
+    private JsonNode projected(Employee employee) {
+        return projectionMapper.valueToTree(employee);
+    }
+
+    /**
+     * Get many Employees by id in one request
+     * @param ids employee ids, at most employee.mget.max-ids of them
+     * @param expandReports replace the direct reports of every employee found with the full reports, one level deep
+     */
+    @PostMapping("/employee/_mget")
+    public MultiGetResult multiGetEmployees(@RequestBody List<String> ids, @RequestParam(defaultValue = "false") boolean expandReports) {
+        LOG.debug("Received multi get employees request for {} ids", ids.size());
+        try {
+            return employeeService.getEmployeesById(ids, expandReports);
+        }catch(IllegalArgumentException e){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Cannot read employees. Reason: " + e);
+        }
+    }
+
     /**
      * Get the number of reports by id request
      * @param id
      */
     @GetMapping("/employee/numberOfReports/{id}")
-    public ReportingStructure getEmployeeNumberOfReports(@PathVariable String id) {
+    public ResponseEntity<ReportingStructure> getEmployeeNumberOfReports(@PathVariable String id) {
         LOG.debug("Received get employee number of reports request for employee with id: [{}]", id);
         try {
-            return employeeService.getEmployeeReports(id);
+            return ResponseEntity.ok(employeeService.getEmployeeReports(id));
+        }catch(EmployeeNotFoundException e){
+            if (!id.equals(e.getEmployeeId())) {
+                // the employee exists but lists a report that does not, which is a data fault rather than a bad id
+                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                        "Cannot find report with id: " + e.getEmployeeId() + " below employee with id: " + id);
+            }
+            return notFound(id);
         }catch(RuntimeException e){
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
                     "Error occurred while processing the employee reports for employee with id: " + id + " reason: " + e);
@@ -69,33 +266,143 @@ public class EmployeeController {
     }
 
     /**
-     * Update Employee request
+     * Get the headcount and salary total, minimum, maximum and mean of an Employee and everyone below them
+     * @param id
+     */
+    @GetMapping("/employee/{id}/compensationRollup")
+    public ResponseEntity<CompensationRollup> getEmployeeCompensationRollup(@PathVariable String id) {
+        LOG.debug("Received get compensation rollup request for employee with id: [{}]", id);
+        try {
+            return ResponseEntity.ok(employeeService.getCompensationRollup(id));
+        }catch(EmployeeNotFoundException e){
+            return notFound(id);
+        }catch(RuntimeException e){
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Error occurred while processing the compensation rollup for employee with id: " + id + " reason: " + e);
+        }
+    }
+
+    /**
+     * Get the headcount and salary total, minimum, maximum and mean of a department
+     * @param department
+     */
+    @GetMapping("/department/{department}/compensationRollup")
+    public CompensationRollup getDepartmentCompensationRollup(@PathVariable String department) {
+        LOG.debug("Received get compensation rollup request for department [{}]", department);
+        try {
+            return employeeService.getDepartmentCompensationRollup(department);
+        }catch(RuntimeException e){
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Error occurred while processing the compensation rollup for department: " + department + " reason: " + e);
+        }
+    }
+
+    /**
+     * Stream the reporting hierarchy below an Employee as newline delimited JSON, one line per employee
+     * @param id
+     * @param maxDepth optional number of levels below the employee to include
+     */
+    @GetMapping(value = "/employee/{id}/hierarchy", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getEmployeeHierarchy(@PathVariable String id,
+                                                                      @RequestParam(required = false) Integer maxDepth) {
+        LOG.debug("Received get employee hierarchy request for employee with id: [{}]", id);
+
+        Stream<HierarchyNode> nodes;
+        try {
+            nodes = employeeService.getEmployeeHierarchy(id, maxDepth == null ? Integer.MAX_VALUE : maxDepth);
+        }catch(EmployeeNotFoundException e){
+            return notFound(id);
+        }catch(IllegalArgumentException e){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Error reading the hierarchy for employee with id: " + id + " reason: " + e);
+        }catch(RuntimeException e){
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "Cannot find employee with id: " + id + " reason: " + e);
+        }
+
+        StreamingResponseBody body = outputStream -> writeNdjson(nodes, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(body);
+    }
+
+    // method to write every element of the stream as a line of JSON, flushing periodically so clients see progress
+    private void writeNdjson(Stream<?> values, OutputStream outputStream) throws IOException {
+        try (values) {
+            Iterator<?> iterator = values.iterator();
+            int written = 0;
+            while (iterator.hasNext()) {
+                outputStream.write(objectMapper.writeValueAsBytes(iterator.next()));
+                outputStream.write('\n');
+                if (written++ % STREAM_FLUSH_INTERVAL == 0) {
+                    outputStream.flush();
+                }
+            }
+            outputStream.flush();
+        }
+    }
+
+    /**
+     * Update Employee request, last writer wins unless If-Match names the version the update was based on
      * @param id
      * @param employee
+     * @param ifMatch optional ETag of the version being replaced, 412 when the employee has moved on since
      */
     @PutMapping("/employee/{id}")
-    public Employee updateEmployee(@PathVariable String id, @RequestBody Employee employee) {
+    public ResponseEntity<Employee> updateEmployee(@PathVariable String id, @RequestBody Employee employee,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         LOG.debug("Received update employee request for employee with id: [{}]", id);
 
         employee.setEmployeeId(id);
+        Long expectedVersion = expectedVersion(ifMatch);
         try {
-            return employeeService.updateEmployee(employee);
+            Employee updatedEmployee = employeeService.updateEmployee(employee, expectedVersion);
+            return withETag(ResponseEntity.ok(), updatedEmployee.getVersion()).body(updatedEmployee);
+        }catch (EmployeeVersionConflictException e){
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                    "Employee with id: " + id + " has changed, reason: " + e);
+        }catch (InvalidDirectReportsException e){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Error Updating Employee with id" + id + " reason: " + e);
         }catch (Exception e){
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
                     "Error Updating Employee with id" + id + " reason: " + e);
         }
     }
 
+    /**
+     * Patch individual fields of an Employee
+     * @param id
+     * @param fields
+     */
+    @PatchMapping("/employee/{id}")
+    public ResponseEntity<Employee> patchEmployee(@PathVariable String id, @RequestBody Map<String, Object> fields) {
+        LOG.debug("Received patch employee request for employee with id: [{}]", id);
+        try {
+            return ResponseEntity.ok(employeeService.patchEmployee(id, fields));
+        }catch (EmployeeNotFoundException e){
+            return notFound(id);
+        }catch (IllegalArgumentException e){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Error patching Employee with id: " + id + " reason: " + e);
+        }catch (Exception e){
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Error patching Employee with id: " + id + " reason: " + e);
+        }
+    }
+
     /**
      * Create Compensation for Employee
      * @param id
      * @param compensation
      */
     @PostMapping("/employee/compensation/{id}")
-    public Compensation createEmployeeCompensation(@PathVariable String id, @RequestBody Compensation compensation) {
+    public ResponseEntity<Compensation> createEmployeeCompensation(@PathVariable String id, @RequestBody Compensation compensation) {
         LOG.debug("Received employee create compensation request for employee with id: [{}]", id);
         try {
-            return employeeService.createEmployeeCompensation(id, compensation);
+            return ResponseEntity.ok(employeeService.createEmployeeCompensation(id, compensation));
+        }catch (EmployeeNotFoundException e){
+            return notFound(id);
         }catch (Exception e){
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
                     "Error creating compensation for employee with id: " + id + " reason: " + e);
@@ -103,17 +410,137 @@ public class EmployeeController {
     }
 
     /**
-     * Get Employee Compensation request
+     * Get Employee Compensation request, the ETag is the version of the employee it belongs to
      * @param id
+     * @param ifNoneMatch optional entity tags the client already holds
      */
     @GetMapping("/employee/compensation/{id}")
-    public Compensation getEmployeeCompensation(@PathVariable String id) {
+    public ResponseEntity<Compensation> getEmployeeCompensation(@PathVariable String id,
+                                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         LOG.debug("Received get employee compensation request for employee with id: [{}]", id);
         try {
-            return employeeService.getEmployeeCompensation(id);
+            // read the version first, a write in between only makes the tag older than the body and never the reverse
+            Optional<Employee> versioned = employeeService.findEmployee(id, VERSION_FIELD);
+            if (versioned.isEmpty()) {
+                return notFound(id);
+            }
+            Long version = versioned.get().getVersion();
+            if (ifNoneMatch != null && matchesAny(ifNoneMatch, version)) {
+                return notModified(version);
+            }
+            return employeeService.findEmployeeCompensation(id)
+                    .map(compensation -> withETag(ResponseEntity.ok(), version).body(compensation))
+                    .orElseGet(() -> notFound(id));
         }catch (RuntimeException e){
             throw new ResponseStatusException(HttpStatus.NOT_FOUND,
                     "Cannot find compensation for employee with id: " + id + " reason: " + e);
         }
     }
+
+    // method to answer a request for an unknown employee, which is routine enough that it skips the error log and
+    // the stack trace of a ResponseStatusException
+    private static <T> ResponseEntity<T> notFound(String id) {
+        LOG.debug("Cannot find employee with id: [{}]", id);
+        return ResponseEntity.notFound().build();
+    }
+
+    // method to turn a version into a strong entity tag
+    private static String eTag(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    private static ResponseEntity.BodyBuilder withETag(ResponseEntity.BodyBuilder builder, Long version) {
+        return version == null ? builder : builder.eTag(eTag(version));
+    }
+
+    private static <T> ResponseEntity<T> notModified(Long version) {
+        return withETag(ResponseEntity.status(HttpStatus.NOT_MODIFIED), version).build();
+    }
+
+    // method to check an If-None-Match header against the current version, weak tags compare equal to strong ones
+    private static boolean matchesAny(String ifNoneMatch, Long version) {
+        if (version == null) {
+            return false;
+        }
+        if (ifNoneMatch.trim().equals("*")) {
+            return true;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(eTag(version))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // method to read the version an If-Match header asks for, null when there is no condition.
+    // A tag that is not one of ours can never match, so it fails the precondition
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Unknown entity tag: " + ifMatch);
+        }
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Unknown entity tag: " + ifMatch);
+        }
+    }
+
+    /**
+     * Create or upsert Employees in bulk from a JSON array or newline delimited JSON. The body is read one chunk of
+     * employee.bulk.chunk-size employees at a time and each chunk is written before the next is read. When the body
+     * turns out to be malformed part way through, the employees before that point are still written and reported,
+     * and the unreadable one gets a FAILED result that ends the response
+     * @param mode create to always assign new ids, upsert to replace employees that already have an id
+     * @param body
+     */
+    @PostMapping(value = "/employee/_bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE})
+    public List<BulkItemResult> bulkEmployees(@RequestParam(defaultValue = "create") String mode, InputStream body) {
+        LOG.debug("Received bulk employee request with mode [{}]", mode);
+
+        if (!mode.equals("create") && !mode.equals("upsert")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Unknown bulk employee mode: " + mode);
+        }
+        try (MappingIterator<Employee> iterator = objectMapper.readerFor(Employee.class).readValues(body)) {
+            Iterator<Employee> employees = uncheckedIterator(iterator);
+            return mode.equals("create")
+                    ? employeeService.createEmployees(employees)
+                    : employeeService.upsertEmployees(employees);
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Error reading bulk employee request. Reason: " + e);
+        }
+    }
+
+    // method to read the values one at a time, a value that cannot be parsed or bound surfaces as an UncheckedIOException
+    private static <T> Iterator<T> uncheckedIterator(MappingIterator<T> iterator) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return iterator.hasNextValue();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public T next() {
+                try {
+                    return iterator.nextValue();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
 }
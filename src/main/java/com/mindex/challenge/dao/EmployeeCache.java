@@ -0,0 +1,92 @@
+package com.mindex.challenge.dao;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mindex.challenge.data.Employee;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Bounded read-through cache in front of {@link EmployeeRepository#findByEmployeeId(String)}. Entries are
+ * evicted by size using Caffeine's W-TinyLFU policy and optionally expire a fixed time after they were loaded.
+ * Writers are responsible for invalidating the employees they change. Hit, miss and eviction counts are published
+ * as cache.* meters tagged with cache=employee.
+ */
+@Component
+public class EmployeeCache implements MeterBinder {
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    // a maximum size of 0 effectively disables the cache
+    @Value("${employee.cache.maximum-size:10000}")
+    private long maximumSize;
+
+    // a ttl of 0 keeps entries until they are evicted or invalidated
+    @Value("${employee.cache.ttl:0s}")
+    private Duration ttl;
+
+    private Cache<String, Employee> cache;
+
+    @PostConstruct
+    public void init() {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats();
+        if (!ttl.isZero()) {
+            builder.expireAfterWrite(ttl);
+        }
+        cache = builder.build();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "employee");
+    }
+
+    /**
+     * Get an employee from the cache, loading it from the repository on a miss
+     * @param employeeId
+     * @return the employee, or null when it does not exist
+     */
+    public Employee get(String employeeId) {
+        return cache.get(employeeId, employeeRepository::findByEmployeeId);
+    }
+
+    /**
+     * Get an employee from the cache without loading it on a miss
+     * @param employeeId
+     * @return the employee, or null when it is not cached
+     */
+    public Employee getIfPresent(String employeeId) {
+        return cache.getIfPresent(employeeId);
+    }
+
+    public void invalidate(String employeeId) {
+        cache.invalidate(employeeId);
+    }
+
+    public long hitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long missCount() {
+        return cache.stats().missCount();
+    }
+
+    public long evictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+}
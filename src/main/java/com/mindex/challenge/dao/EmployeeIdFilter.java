@@ -0,0 +1,103 @@
+package com.mindex.challenge.dao;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of every employee id that has been written, so lookups of ids that were never written can be
+ * answered without going to the database. It can answer that an id is definitely unknown or that it might exist,
+ * and sized for employee.id-filter.expected-ids ids it wrongly says "might exist" for about
+ * employee.id-filter.false-positive-rate of the unknown ids, which then fall through to the database as before.
+ * Writers add ids before writing the employee, so a reader never sees an employee the filter rules out.
+ *
+ * Until {@link com.mindex.challenge.DataBootstrap} has added the ids already in the store and marked the filter
+ * ready every id might exist. Employees are never deleted, so ids are never removed.
+ */
+@Component
+public class EmployeeIdFilter {
+
+    @Value("${employee.id-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${employee.id-filter.expected-ids:1000000}")
+    private long expectedIds;
+
+    @Value("${employee.id-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private AtomicLongArray bits;
+    private long bitCount;
+    private int hashCount;
+    private volatile boolean ready;
+
+    @PostConstruct
+    public void init() {
+        // the standard optimal sizes for n elements at false positive rate p: m = -n ln p / (ln 2)^2 and k = m / n ln 2
+        bitCount = Math.max(64, (long) Math.ceil(-expectedIds * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+        hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedIds * Math.log(2)));
+        bits = new AtomicLongArray((int) ((bitCount + 63) / 64));
+    }
+
+    public void add(String employeeId) {
+        long hash = hash(employeeId);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Integer.toUnsignedLong(hash1 + i * hash2) % bitCount;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = bits.get(word);
+            while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                current = bits.get(word);
+            }
+        }
+    }
+
+    /**
+     * @param employeeId
+     * @return false only when the employee with the id has definitely never been written
+     */
+    public boolean mightContain(String employeeId) {
+        if (!enabled || !ready) {
+            return true;
+        }
+        long hash = hash(employeeId);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Integer.toUnsignedLong(hash1 + i * hash2) % bitCount;
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // called once every id already in the store has been added
+    public void markReady() {
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // 64 bit FNV-1a over the UTF-8 bytes, finished with the murmur3 mixer so both halves are usable hashes
+    private static long hash(String employeeId) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : employeeId.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93fe5c5ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
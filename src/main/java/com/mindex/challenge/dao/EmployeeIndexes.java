@@ -0,0 +1,45 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.Employee;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Creates the secondary indexes behind the employee directory queries at startup. They are declared here rather
+ * than with annotations on Employee because Employee embeds itself as directReports, and annotation based index
+ * creation would also index every field of the embedded reports.
+ */
+@Profile("!inprocess")
+@Component
+public class EmployeeIndexes {
+    private static final Logger LOG = LoggerFactory.getLogger(EmployeeIndexes.class);
+
+    private static final List<Index> INDEXES = List.of(
+            // department on its own is served by the prefix of this index
+            new Index().named("department_position").on("department", Sort.Direction.ASC).on("position", Sort.Direction.ASC),
+            new Index().named("position").on("position", Sort.Direction.ASC),
+            // last name prefix searches are served by the prefix of this index
+            new Index().named("lastName_firstName").on("lastName", Sort.Direction.ASC).on("firstName", Sort.Direction.ASC));
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @PostConstruct
+    public void init() {
+        IndexOperations indexOperations = mongoTemplate.indexOps(Employee.class);
+        for (Index index : INDEXES) {
+            LOG.debug("Ensuring employee index [{}]", index.getIndexOptions().get("name"));
+            indexOperations.ensureIndex(index);
+        }
+    }
+}
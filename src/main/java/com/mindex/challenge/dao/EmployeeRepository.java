@@ -1,10 +1,48 @@
 package com.mindex.challenge.dao;
 
 import com.mindex.challenge.data.Employee;
-import org.springframework.stereotype.Repository;
-import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.repository.ListCrudRepository;
+import org.springframework.data.repository.ListPagingAndSortingRepository;
+import org.springframework.data.repository.NoRepositoryBean;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * The employee operations the application uses, implemented by {@link MongoEmployeeRepository} and, under the
+ * inprocess profile, by {@link InMemoryEmployeeRepository}. It leaves out query by example, which the application
+ * does not use and the in-process repository cannot serve.
+ */
+@NoRepositoryBean
+public interface EmployeeRepository extends ListCrudRepository<Employee, String>,
+        ListPagingAndSortingRepository<Employee, String>, EmployeeRepositoryCustom {
+
+    // inserts the employee, failing rather than overwriting when the id is taken
+    <S extends Employee> S insert(S employee);
+
+    <S extends Employee> List<S> insert(Iterable<S> employees);
 
-@Repository
-public interface EmployeeRepository extends MongoRepository<Employee, String> {
     Employee findByEmployeeId(String employeeId);
+
+    // all employees projected down to what the reporting hierarchy index keeps: their id, the ids of their direct
+    // reports, their department and their salary
+    @Query(value = "{}", fields = "{ 'employeeId' : 1, 'directReports.employeeId' : 1, 'department' : 1, 'compensation.salary' : 1 }")
+    Stream<Employee> streamReportingLines();
+
+    // employees with the given ids projected down to their id and the ids of their direct reports
+    @Query(value = "{ 'employeeId' : { $in : ?0 } }", fields = "{ 'employeeId' : 1, 'directReports.employeeId' : 1 }")
+    List<Employee> findByEmployeeIdIn(Collection<String> employeeIds);
+
+    // directory queries, backed by the indexes declared in EmployeeIndexes
+    Page<Employee> findByDepartment(String department, Pageable pageable);
+
+    Page<Employee> findByPosition(String position, Pageable pageable);
+
+    Page<Employee> findByDepartmentAndPosition(String department, String position, Pageable pageable);
+
+    Page<Employee> findByLastNameStartingWith(String lastNamePrefix, Pageable pageable);
 }
@@ -0,0 +1,88 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Employee repository operations that go beyond derived queries and are implemented on top of MongoTemplate
+ */
+public interface EmployeeRepositoryCustom {
+
+    /**
+     * Insert the employees with a single unordered bulk write
+     * @param employees
+     * @return the error message of every employee that could not be written, keyed by its position in the list
+     */
+    Map<Integer, String> bulkInsert(List<Employee> employees);
+
+    /**
+     * Insert or replace the employees by id with a single unordered bulk write, bumping their versions
+     * @param employees
+     * @return the error message of every employee that could not be written, keyed by its position in the list
+     */
+    Map<Integer, String> bulkUpsert(List<Employee> employees);
+
+    /**
+     * Insert or replace the employees by id with a single unordered bulk write, keeping the versions they carry
+     * @param employees
+     * @return the error message of every employee that could not be written, keyed by its position in the list
+     */
+    Map<Integer, String> bulkReplace(List<Employee> employees);
+
+    /**
+     * Replace every field of an employee and bump its version with a single atomic update
+     * @param employee
+     * @param expectedVersion only replace the employee while it is at this version, or null to replace it
+     *                        whatever its version is and insert it when it does not exist
+     * @return the replaced employee, or null when a conditional replace found no employee at the expected version
+     */
+    Employee replaceEmployee(Employee employee, Long expectedVersion);
+
+    /**
+     * Set the compensation of an employee and bump its version with a single targeted update
+     * @param employeeId
+     * @param compensation
+     * @return false when there is no employee with the id
+     */
+    boolean updateCompensation(String employeeId, Compensation compensation);
+
+    /**
+     * Set the given fields of an employee and bump its version with a single targeted update
+     * @param employeeId
+     * @param fields new field values keyed by Employee property name
+     * @return the updated employee, or null when there is no employee with the id
+     */
+    Employee updateFields(String employeeId, Map<String, Object> fields);
+
+    /**
+     * Find an employee, reading only the given fields from the database
+     * @param employeeId
+     * @param fields Employee property names to read, or null to read them all
+     * @return the employee, or null when there is no employee with the id
+     */
+    Employee findFieldsByEmployeeId(String employeeId, Collection<String> fields);
+
+    /**
+     * Find the employees with the given ids, reading only the given fields from the database
+     * @param employeeIds
+     * @param fields Employee property names to read, or null to read them all
+     */
+    List<Employee> findFieldsByEmployeeIdIn(Collection<String> employeeIds, Collection<String> fields);
+
+    /**
+     * Find the next page of employees in id order
+     * @param afterEmployeeId id of the last employee on the previous page, or null for the first page
+     * @param limit maximum number of employees to return
+     */
+    List<Employee> findPageAfter(String afterEmployeeId, int limit);
+
+    /**
+     * Stream every employee from a database cursor without loading the collection into memory. The stream must be closed.
+     */
+    Stream<Employee> streamAll();
+}
@@ -0,0 +1,149 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mongodb.bulk.BulkWriteError;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class EmployeeRepositoryCustomImpl implements EmployeeRepositoryCustom {
+    private static final String VERSION = "version";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public Map<Integer, String> bulkInsert(List<Employee> employees) {
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Employee.class);
+        bulkOperations.insert(employees);
+        return execute(bulkOperations);
+    }
+
+    @Override
+    public Map<Integer, String> bulkUpsert(List<Employee> employees) {
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Employee.class);
+        for (Employee employee : employees) {
+            bulkOperations.upsert(byId(employee.getEmployeeId()), replacement(employee));
+        }
+        return execute(bulkOperations);
+    }
+
+    @Override
+    public Map<Integer, String> bulkReplace(List<Employee> employees) {
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Employee.class);
+        for (Employee employee : employees) {
+            bulkOperations.replaceOne(byId(employee.getEmployeeId()), employee, FindAndReplaceOptions.options().upsert());
+        }
+        return execute(bulkOperations);
+    }
+
+    @Override
+    public Employee replaceEmployee(Employee employee, Long expectedVersion) {
+        Query query = byId(employee.getEmployeeId());
+        if (expectedVersion != null) {
+            query.addCriteria(Criteria.where(VERSION).is(expectedVersion));
+        }
+        FindAndModifyOptions options = FindAndModifyOptions.options().returnNew(true).upsert(expectedVersion == null);
+        return mongoTemplate.findAndModify(query, replacement(employee), options, Employee.class);
+    }
+
+    @Override
+    public boolean updateCompensation(String employeeId, Compensation compensation) {
+        Update update = new Update().set("compensation", compensation).inc(VERSION, 1);
+        return mongoTemplate.updateFirst(byId(employeeId), update, Employee.class).getMatchedCount() > 0;
+    }
+
+    @Override
+    public Employee updateFields(String employeeId, Map<String, Object> fields) {
+        Update update = new Update().inc(VERSION, 1);
+        fields.forEach(update::set);
+        return mongoTemplate.findAndModify(byId(employeeId), update, FindAndModifyOptions.options().returnNew(true), Employee.class);
+    }
+
+    @Override
+    public Employee findFieldsByEmployeeId(String employeeId, Collection<String> fields) {
+        return mongoTemplate.findOne(withFields(byId(employeeId), fields), Employee.class);
+    }
+
+    @Override
+    public List<Employee> findFieldsByEmployeeIdIn(Collection<String> employeeIds, Collection<String> fields) {
+        Query query = Query.query(Criteria.where("employeeId").in(employeeIds));
+        return mongoTemplate.find(withFields(query, fields), Employee.class);
+    }
+
+    @Override
+    public List<Employee> findPageAfter(String afterEmployeeId, int limit) {
+        // keyset pagination on the id index, so later pages cost the same as the first
+        Query query = afterEmployeeId == null
+                ? new Query()
+                : Query.query(Criteria.where("employeeId").gt(afterEmployeeId));
+        query.with(Sort.by("employeeId")).limit(limit);
+        return mongoTemplate.find(query, Employee.class);
+    }
+
+    @Override
+    public Stream<Employee> streamAll() {
+        return mongoTemplate.stream(new Query(), Employee.class);
+    }
+
+    // a whole document replacement written as an update, so the version can be bumped atomically in the same write.
+    // The reactive repository replaces employees the same way
+    public static Update replacement(Employee employee) {
+        Update update = new Update().inc(VERSION, 1);
+        setOrUnset(update, "firstName", employee.getFirstName());
+        setOrUnset(update, "lastName", employee.getLastName());
+        setOrUnset(update, "position", employee.getPosition());
+        setOrUnset(update, "department", employee.getDepartment());
+        setOrUnset(update, "compensation", employee.getCompensation());
+        setOrUnset(update, "directReports", employee.getDirectReports());
+        return update;
+    }
+
+    private static void setOrUnset(Update update, String field, Object value) {
+        if (value == null) {
+            update.unset(field);
+        } else {
+            update.set(field, value);
+        }
+    }
+
+    private static Query byId(String employeeId) {
+        return Query.query(Criteria.where("employeeId").is(employeeId));
+    }
+
+    // restricts the query to the given fields, the id is always included
+    private static Query withFields(Query query, Collection<String> fields) {
+        if (fields != null) {
+            query.fields().include(fields.toArray(new String[0]));
+        }
+        return query;
+    }
+
+    // unordered bulk writes keep going after a failure, so collect the errors rather than failing the whole batch
+    private static Map<Integer, String> execute(BulkOperations bulkOperations) {
+        try {
+            bulkOperations.execute();
+            return Map.of();
+        } catch (BulkOperationException e) {
+            Map<Integer, String> errors = new HashMap<>();
+            for (BulkWriteError error : e.getErrors()) {
+                errors.put(error.getIndex(), error.getMessage());
+            }
+            return errors;
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import org.bson.types.ObjectId;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * EmployeeRepository that keeps the employees in a concurrent sorted map on the heap instead of going through the
+ * Mongo driver, so a lookup costs a map read and a copy rather than a BSON round trip over the loopback socket.
+ * Activated by the inprocess profile, which also leaves out the embedded Mongo server and the Mongo backed repository.
+ *
+ * Employees are copied on the way in and on the way out so callers can never change the stored documents, the
+ * same isolation the database gives. Every write replaces a whole entry in one map operation, which matches the
+ * single document atomicity of Mongo.
+ */
+@Profile("inprocess")
+@Repository
+public class InMemoryEmployeeRepository implements EmployeeRepository {
+
+    private static final Map<String, Function<Employee, String>> SORTABLE_PROPERTIES = Map.of(
+            "employeeId", Employee::getEmployeeId,
+            "firstName", Employee::getFirstName,
+            "lastName", Employee::getLastName,
+            "position", Employee::getPosition,
+            "department", Employee::getDepartment);
+
+    private static final Map<String, BiConsumer<Employee, Object>> SETTERS = Map.of(
+            "firstName", (employee, value) -> employee.setFirstName((String) value),
+            "lastName", (employee, value) -> employee.setLastName((String) value),
+            "position", (employee, value) -> employee.setPosition((String) value),
+            "department", (employee, value) -> employee.setDepartment((String) value),
+            "compensation", (employee, value) -> employee.setCompensation(copy((Compensation) value)),
+            "directReports", (employee, value) -> employee.setDirectReports(copyReports(castReports(value))));
+
+    private static final Set<String> REPORTING_LINE_FIELDS = Set.of("employeeId", "directReports");
+    private static final Set<String> INDEXED_FIELDS = Set.of("employeeId", "directReports", "department", "compensation");
+
+    // keyed and iterated in id order, which is what keyset pagination needs
+    private final ConcurrentNavigableMap<String, Employee> employees = new ConcurrentSkipListMap<>();
+
+    @Override
+    public Employee findByEmployeeId(String employeeId) {
+        return copy(employees.get(employeeId), null);
+    }
+
+    @Override
+    public Stream<Employee> streamReportingLines() {
+        return employees.values().stream().map(employee -> copy(employee, INDEXED_FIELDS));
+    }
+
+    @Override
+    public List<Employee> findByEmployeeIdIn(Collection<String> employeeIds) {
+        return findFieldsByEmployeeIdIn(employeeIds, REPORTING_LINE_FIELDS);
+    }
+
+    @Override
+    public Page<Employee> findByDepartment(String department, Pageable pageable) {
+        return page(employee -> department.equals(employee.getDepartment()), pageable);
+    }
+
+    @Override
+    public Page<Employee> findByPosition(String position, Pageable pageable) {
+        return page(employee -> position.equals(employee.getPosition()), pageable);
+    }
+
+    @Override
+    public Page<Employee> findByDepartmentAndPosition(String department, String position, Pageable pageable) {
+        return page(employee -> department.equals(employee.getDepartment()) && position.equals(employee.getPosition()),
+                pageable);
+    }
+
+    @Override
+    public Page<Employee> findByLastNameStartingWith(String lastNamePrefix, Pageable pageable) {
+        return page(employee -> employee.getLastName() != null && employee.getLastName().startsWith(lastNamePrefix),
+                pageable);
+    }
+
+    @Override
+    public Map<Integer, String> bulkInsert(List<Employee> employees) {
+        Map<Integer, String> errors = new HashMap<>();
+        for (int i = 0; i < employees.size(); i++) {
+            try {
+                insert(employees.get(i));
+            } catch (DuplicateKeyException e) {
+                errors.put(i, e.getMessage());
+            }
+        }
+        return errors;
+    }
+
+    @Override
+    public Map<Integer, String> bulkUpsert(List<Employee> employees) {
+        for (Employee employee : employees) {
+            replaceEmployee(employee, null);
+        }
+        return Map.of();
+    }
+
+    @Override
+    public Map<Integer, String> bulkReplace(List<Employee> employees) {
+        for (Employee employee : employees) {
+            Employee copy = copy(employee, null);
+            this.employees.put(copy.getEmployeeId(), copy);
+        }
+        return Map.of();
+    }
+
+    @Override
+    public Employee replaceEmployee(Employee employee, Long expectedVersion) {
+        Employee[] replaced = new Employee[1];
+        employees.compute(employee.getEmployeeId(), (id, existing) -> {
+            if (expectedVersion != null && (existing == null || !expectedVersion.equals(existing.getVersion()))) {
+                return existing;
+            }
+            replaced[0] = copy(employee, null);
+            replaced[0].setVersion(nextVersion(existing));
+            return replaced[0];
+        });
+        return copy(replaced[0], null);
+    }
+
+    @Override
+    public boolean updateCompensation(String employeeId, Compensation compensation) {
+        return updateFields(employeeId, Map.of("compensation", compensation)) != null;
+    }
+
+    @Override
+    public Employee updateFields(String employeeId, Map<String, Object> fields) {
+        Employee updated = employees.computeIfPresent(employeeId, (id, employee) -> {
+            Employee copy = copy(employee, null);
+            fields.forEach((field, value) -> setter(field).accept(copy, value));
+            copy.setVersion(nextVersion(employee));
+            return copy;
+        });
+        return copy(updated, null);
+    }
+
+    @Override
+    public Employee findFieldsByEmployeeId(String employeeId, Collection<String> fields) {
+        return copy(employees.get(employeeId), fields);
+    }
+
+    @Override
+    public List<Employee> findFieldsByEmployeeIdIn(Collection<String> employeeIds, Collection<String> fields) {
+        List<Employee> result = new ArrayList<>(employeeIds.size());
+        for (String employeeId : employeeIds) {
+            Employee employee = employees.get(employeeId);
+            if (employee != null) {
+                result.add(copy(employee, fields));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Employee> findPageAfter(String afterEmployeeId, int limit) {
+        Collection<Employee> candidates = afterEmployeeId == null
+                ? employees.values()
+                : employees.tailMap(afterEmployeeId, false).values();
+        return candidates.stream().limit(limit).map(employee -> copy(employee, null)).toList();
+    }
+
+    @Override
+    public Stream<Employee> streamAll() {
+        return employees.values().stream().map(employee -> copy(employee, null));
+    }
+
+    @Override
+    public <S extends Employee> S insert(S entity) {
+        if (entity.getEmployeeId() == null) {
+            entity.setEmployeeId(new ObjectId().toHexString());
+        }
+        if (entity.getVersion() == null) {
+            entity.setVersion(0L);
+        }
+        if (employees.putIfAbsent(entity.getEmployeeId(), copy(entity, null)) != null) {
+            throw new DuplicateKeyException("Duplicate employee id: " + entity.getEmployeeId());
+        }
+        return entity;
+    }
+
+    @Override
+    public <S extends Employee> List<S> insert(Iterable<S> entities) {
+        List<S> result = new ArrayList<>();
+        entities.forEach(entity -> result.add(insert(entity)));
+        return result;
+    }
+
+    // like the Mongo repository, an employee without a version is new and one with a version is only saved over
+    // the stored employee at that version
+    @Override
+    public <S extends Employee> S save(S entity) {
+        if (entity.getVersion() == null) {
+            return insert(entity);
+        }
+        Employee saved = replaceEmployee(entity, entity.getVersion());
+        if (saved == null) {
+            throw new OptimisticLockingFailureException("Cannot save employee with id: " + entity.getEmployeeId()
+                    + " at version " + entity.getVersion());
+        }
+        entity.setVersion(saved.getVersion());
+        return entity;
+    }
+
+    @Override
+    public <S extends Employee> List<S> saveAll(Iterable<S> entities) {
+        List<S> result = new ArrayList<>();
+        entities.forEach(entity -> result.add(save(entity)));
+        return result;
+    }
+
+    @Override
+    public Optional<Employee> findById(String id) {
+        return Optional.ofNullable(findByEmployeeId(id));
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return employees.containsKey(id);
+    }
+
+    @Override
+    public List<Employee> findAll() {
+        return streamAll().toList();
+    }
+
+    @Override
+    public List<Employee> findAllById(Iterable<String> ids) {
+        List<String> employeeIds = new ArrayList<>();
+        ids.forEach(employeeIds::add);
+        return findFieldsByEmployeeIdIn(employeeIds, null);
+    }
+
+    @Override
+    public List<Employee> findAll(Sort sort) {
+        return employees.values().stream()
+                .sorted(comparator(sort))
+                .map(employee -> copy(employee, null))
+                .toList();
+    }
+
+    @Override
+    public Page<Employee> findAll(Pageable pageable) {
+        return page(employee -> true, pageable);
+    }
+
+    // the map has to be walked to be counted, which is fine for the startup and diagnostic callers
+    @Override
+    public long count() {
+        return employees.size();
+    }
+
+    @Override
+    public void deleteById(String id) {
+        employees.remove(id);
+    }
+
+    @Override
+    public void delete(Employee entity) {
+        employees.remove(entity.getEmployeeId());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        ids.forEach(employees::remove);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Employee> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        employees.clear();
+    }
+
+    // method to filter, sort and slice the employees the way a paged derived query would
+    private Page<Employee> page(Predicate<Employee> filter, Pageable pageable) {
+        List<Employee> matches = employees.values().stream()
+                .filter(filter)
+                .sorted(comparator(pageable.getSort()))
+                .toList();
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(matches.stream().map(employee -> copy(employee, null)).toList());
+        }
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        int to = Math.min(from + pageable.getPageSize(), matches.size());
+        List<Employee> content = matches.subList(from, to).stream().map(employee -> copy(employee, null)).toList();
+        return new PageImpl<>(content, pageable, matches.size());
+    }
+
+    // orders by the requested properties with nulls first like Mongo does, ties are broken by id
+    private static Comparator<Employee> comparator(Sort sort) {
+        Comparator<Employee> byId = Comparator.comparing(Employee::getEmployeeId);
+        Comparator<Employee> comparator = null;
+        for (Sort.Order order : sort) {
+            Function<Employee, String> property = SORTABLE_PROPERTIES.get(order.getProperty());
+            if (property == null) {
+                throw new IllegalArgumentException("Cannot sort employees by: " + order.getProperty());
+            }
+            Comparator<Employee> next = Comparator.comparing(property, Comparator.nullsFirst(Comparator.naturalOrder()));
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator == null ? byId : comparator.thenComparing(byId);
+    }
+
+    // the version after a write, an employee written before versioning counts as version 0
+    private static Long nextVersion(Employee existing) {
+        return existing == null || existing.getVersion() == null ? 1L : existing.getVersion() + 1;
+    }
+
+    private static BiConsumer<Employee, Object> setter(String field) {
+        BiConsumer<Employee, Object> setter = SETTERS.get(field);
+        if (setter == null) {
+            throw new IllegalArgumentException("Employee field cannot be updated: " + field);
+        }
+        return setter;
+    }
+
+    // copies the given fields of the employee, or all of them when fields is null, the id is always copied
+    private static Employee copy(Employee employee, Collection<String> fields) {
+        if (employee == null) {
+            return null;
+        }
+        Employee copy = new Employee();
+        copy.setEmployeeId(employee.getEmployeeId());
+        if (fields == null || fields.contains("version")) {
+            copy.setVersion(employee.getVersion());
+        }
+        if (fields == null || fields.contains("firstName")) {
+            copy.setFirstName(employee.getFirstName());
+        }
+        if (fields == null || fields.contains("lastName")) {
+            copy.setLastName(employee.getLastName());
+        }
+        if (fields == null || fields.contains("position")) {
+            copy.setPosition(employee.getPosition());
+        }
+        if (fields == null || fields.contains("department")) {
+            copy.setDepartment(employee.getDepartment());
+        }
+        if (fields == null || fields.contains("compensation")) {
+            copy.setCompensation(copy(employee.getCompensation()));
+        }
+        if (fields == null || fields.contains("directReports")) {
+            copy.setDirectReports(copyReports(employee.getDirectReports()));
+        }
+        return copy;
+    }
+
+    private static Compensation copy(Compensation compensation) {
+        if (compensation == null) {
+            return null;
+        }
+        Compensation copy = new Compensation();
+        copy.setSalary(compensation.getSalary());
+        copy.setEffectiveDate(compensation.getEffectiveDate());
+        return copy;
+    }
+
+    private static List<Employee> copyReports(List<Employee> directReports) {
+        if (directReports == null) {
+            return null;
+        }
+        List<Employee> copy = new ArrayList<>(directReports.size());
+        for (Employee report : directReports) {
+            copy.add(copy(report, null));
+        }
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Employee> castReports(Object value) {
+        return (List<Employee>) value;
+    }
+}
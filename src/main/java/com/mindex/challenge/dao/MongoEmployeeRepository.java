@@ -0,0 +1,17 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.Employee;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * EmployeeRepository backed by the embedded Mongo server, replaced by {@link InMemoryEmployeeRepository} under the
+ * inprocess profile. EmployeeRepositoryCustom is repeated here because Spring Data only looks for the implementations
+ * of custom fragments among the directly extended interfaces.
+ */
+@Profile("!inprocess")
+@Repository
+public interface MongoEmployeeRepository extends MongoRepository<Employee, String>, EmployeeRepository,
+        EmployeeRepositoryCustom {
+}
@@ -0,0 +1,56 @@
+package com.mindex.challenge.data;
+
+public class BulkItemResult {
+    public enum Status {
+        CREATED,
+        UPSERTED,
+        FAILED
+    }
+
+    private int index;
+    private String employeeId;
+    private Status status;
+    private String error;
+
+    public BulkItemResult() {
+    }
+
+    public BulkItemResult(int index, String employeeId, Status status, String error) {
+        this.index = index;
+        this.employeeId = employeeId;
+        this.status = status;
+        this.error = error;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getEmployeeId() {
+        return employeeId;
+    }
+
+    public void setEmployeeId(String employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
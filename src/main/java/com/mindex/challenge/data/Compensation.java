@@ -1,17 +1,24 @@
 package com.mindex.challenge.data;
 
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+
 public class Compensation {
-    private String salary;
+    // stored as a Decimal128 so salaries keep their exact value and can be aggregated, older string values still read
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal salary;
     private String effectiveDate;
 
     public Compensation() {
     }
 
-    public String getSalary() {
+    public BigDecimal getSalary() {
         return salary;
     }
 
-    public void setSalary(String salary) {
+    public void setSalary(BigDecimal salary) {
         this.salary = salary;
     }
 
@@ -23,5 +30,3 @@ public class Compensation {
         this.effectiveDate = effectiveDate;
     }
 }
-
-
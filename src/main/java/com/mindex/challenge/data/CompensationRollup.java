@@ -0,0 +1,87 @@
+package com.mindex.challenge.data;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CompensationRollup {
+    // the manager at the top of the subtree, or the department, that the rollup covers
+    private String employee;
+    private String department;
+    // number of employees covered, including those without a salary
+    private int headcount;
+    // number of employees covered that have a salary, the salary figures are over these only
+    private int salaried;
+    private BigDecimal totalSalary;
+    private BigDecimal minSalary;
+    private BigDecimal maxSalary;
+    private BigDecimal meanSalary;
+
+    public CompensationRollup() {
+    }
+
+    public String getEmployee() {
+        return employee;
+    }
+
+    public void setEmployee(String employee) {
+        this.employee = employee;
+    }
+
+    public String getDepartment() {
+        return department;
+    }
+
+    public void setDepartment(String department) {
+        this.department = department;
+    }
+
+    public int getHeadcount() {
+        return headcount;
+    }
+
+    public void setHeadcount(int headcount) {
+        this.headcount = headcount;
+    }
+
+    public int getSalaried() {
+        return salaried;
+    }
+
+    public void setSalaried(int salaried) {
+        this.salaried = salaried;
+    }
+
+    public BigDecimal getTotalSalary() {
+        return totalSalary;
+    }
+
+    public void setTotalSalary(BigDecimal totalSalary) {
+        this.totalSalary = totalSalary;
+    }
+
+    public BigDecimal getMinSalary() {
+        return minSalary;
+    }
+
+    public void setMinSalary(BigDecimal minSalary) {
+        this.minSalary = minSalary;
+    }
+
+    public BigDecimal getMaxSalary() {
+        return maxSalary;
+    }
+
+    public void setMaxSalary(BigDecimal maxSalary) {
+        this.maxSalary = maxSalary;
+    }
+
+    public BigDecimal getMeanSalary() {
+        return meanSalary;
+    }
+
+    public void setMeanSalary(BigDecimal meanSalary) {
+        this.meanSalary = meanSalary;
+    }
+}
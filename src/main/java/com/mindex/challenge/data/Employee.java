@@ -1,6 +1,7 @@
 package com.mindex.challenge.data;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 
 import java.util.List;
 
@@ -13,6 +14,9 @@ public class Employee {
     private String department;
     private Compensation compensation;
     private List<Employee> directReports;
+    // bumped by every write, served as the ETag of the employee and its compensation
+    @Version
+    private Long version;
 
 
     public Employee() {
@@ -74,4 +78,11 @@ public class Employee {
         this.compensation = compensation;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
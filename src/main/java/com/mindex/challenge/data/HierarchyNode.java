@@ -0,0 +1,83 @@
+package com.mindex.challenge.data;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class HierarchyNode {
+    private String employeeId;
+    private String managerId;
+    private int depth;
+    private String firstName;
+    private String lastName;
+    private String position;
+    private String department;
+
+    public HierarchyNode() {
+    }
+
+    public HierarchyNode(Employee employee, String managerId, int depth) {
+        this.employeeId = employee.getEmployeeId();
+        this.managerId = managerId;
+        this.depth = depth;
+        this.firstName = employee.getFirstName();
+        this.lastName = employee.getLastName();
+        this.position = employee.getPosition();
+        this.department = employee.getDepartment();
+    }
+
+    public String getEmployeeId() {
+        return employeeId;
+    }
+
+    public void setEmployeeId(String employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    public String getManagerId() {
+        return managerId;
+    }
+
+    public void setManagerId(String managerId) {
+        this.managerId = managerId;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    public String getPosition() {
+        return position;
+    }
+
+    public void setPosition(String position) {
+        this.position = position;
+    }
+
+    public String getDepartment() {
+        return department;
+    }
+
+    public void setDepartment(String department) {
+        this.department = department;
+    }
+}
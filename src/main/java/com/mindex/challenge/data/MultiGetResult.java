@@ -0,0 +1,35 @@
+package com.mindex.challenge.data;
+
+import java.util.List;
+import java.util.Map;
+
+public class MultiGetResult {
+    // found employees keyed by id, in the order they were asked for
+    private Map<String, Employee> employees;
+    // ids that were asked for but do not exist
+    private List<String> missing;
+
+    public MultiGetResult() {
+    }
+
+    public MultiGetResult(Map<String, Employee> employees, List<String> missing) {
+        this.employees = employees;
+        this.missing = missing;
+    }
+
+    public Map<String, Employee> getEmployees() {
+        return employees;
+    }
+
+    public void setEmployees(Map<String, Employee> employees) {
+        this.employees = employees;
+    }
+
+    public List<String> getMissing() {
+        return missing;
+    }
+
+    public void setMissing(List<String> missing) {
+        this.missing = missing;
+    }
+}
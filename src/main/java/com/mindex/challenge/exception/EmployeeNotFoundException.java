@@ -0,0 +1,18 @@
+package com.mindex.challenge.exception;
+
+/**
+ * Thrown when an employee does not exist. Unknown ids are an expected outcome rather than a fault, so the
+ * exception skips capturing a stack trace.
+ */
+public class EmployeeNotFoundException extends RuntimeException {
+    private final String employeeId;
+
+    public EmployeeNotFoundException(String employeeId) {
+        super("Cannot find employee with id: " + employeeId, null, false, false);
+        this.employeeId = employeeId;
+    }
+
+    public String getEmployeeId() {
+        return employeeId;
+    }
+}
@@ -0,0 +1,20 @@
+package com.mindex.challenge.exception;
+
+public class EmployeeVersionConflictException extends RuntimeException {
+    private final String employeeId;
+    private final Long expectedVersion;
+
+    public EmployeeVersionConflictException(String employeeId, Long expectedVersion) {
+        super("Employee with id: " + employeeId + " is not at version " + expectedVersion);
+        this.employeeId = employeeId;
+        this.expectedVersion = expectedVersion;
+    }
+
+    public String getEmployeeId() {
+        return employeeId;
+    }
+
+    public Long getExpectedVersion() {
+        return expectedVersion;
+    }
+}
@@ -0,0 +1,14 @@
+package com.mindex.challenge.exception;
+
+public class InvalidDirectReportsException extends IllegalArgumentException {
+    private final String employeeId;
+
+    public InvalidDirectReportsException(String employeeId, String reason) {
+        super("Invalid direct reports for employee with id: " + employeeId + ", " + reason);
+        this.employeeId = employeeId;
+    }
+
+    public String getEmployeeId() {
+        return employeeId;
+    }
+}
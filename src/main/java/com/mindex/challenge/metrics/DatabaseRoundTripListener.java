@@ -0,0 +1,16 @@
+package com.mindex.challenge.metrics;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+
+/**
+ * Counts every command sent to the database against the current request. The synchronous driver notifies
+ * listeners on the calling thread, so the request is found through {@link RequestMetrics#current()}.
+ */
+public class DatabaseRoundTripListener implements CommandListener {
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        RequestMetrics.recordDatabaseRoundTrip();
+    }
+}
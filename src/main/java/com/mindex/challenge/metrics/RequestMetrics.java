@@ -0,0 +1,58 @@
+package com.mindex.challenge.metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per request counters of database round trips and hierarchy nodes visited. The counters are bound to the thread
+ * handling the request by {@link RequestMetricsFilter}; work done outside of a request is not counted.
+ */
+public final class RequestMetrics {
+    private static final ThreadLocal<RequestMetrics> CURRENT = new ThreadLocal<>();
+
+    // atomic so work handed off to other threads can record into the same request
+    private final AtomicInteger databaseRoundTrips = new AtomicInteger();
+    private final AtomicInteger nodesVisited = new AtomicInteger();
+
+    // starts counting for the current thread
+    public static RequestMetrics begin() {
+        RequestMetrics metrics = new RequestMetrics();
+        CURRENT.set(metrics);
+        return metrics;
+    }
+
+    // binds the counters of a request to the current thread, or unbinds them when null
+    public static void bind(RequestMetrics metrics) {
+        if (metrics == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(metrics);
+        }
+    }
+
+    // the counters bound to the current thread, or null outside of a request
+    public static RequestMetrics current() {
+        return CURRENT.get();
+    }
+
+    public static void recordDatabaseRoundTrip() {
+        RequestMetrics metrics = CURRENT.get();
+        if (metrics != null) {
+            metrics.databaseRoundTrips.incrementAndGet();
+        }
+    }
+
+    public static void recordNodesVisited(int nodes) {
+        RequestMetrics metrics = CURRENT.get();
+        if (metrics != null) {
+            metrics.nodesVisited.addAndGet(nodes);
+        }
+    }
+
+    public int getDatabaseRoundTrips() {
+        return databaseRoundTrips.get();
+    }
+
+    public int getNodesVisited() {
+        return nodesVisited.get();
+    }
+}
@@ -0,0 +1,56 @@
+package com.mindex.challenge.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records the database round trips and hierarchy nodes visited by each request as distribution summaries tagged
+ * with the request method and matched uri pattern, so fan-out blowups on a single endpoint can be alerted on.
+ * Work done while streaming an async response body happens after the filter returns and is not counted.
+ */
+@Profile("!reactive")
+@Component
+public class RequestMetricsFilter extends OncePerRequestFilter {
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        RequestMetrics metrics = RequestMetrics.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestMetrics.bind(null);
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern == null ? UNKNOWN_URI : pattern.toString();
+            summary("employee.request.db.round.trips", "Database commands sent while handling a request", request, uri)
+                    .record(metrics.getDatabaseRoundTrips());
+            summary("employee.request.nodes.visited", "Reporting hierarchy nodes visited while handling a request", request, uri)
+                    .record(metrics.getNodesVisited());
+        }
+    }
+
+    private DistributionSummary summary(String name, String description, HttpServletRequest request, String uri) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
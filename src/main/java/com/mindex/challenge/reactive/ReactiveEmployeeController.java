@@ -0,0 +1,138 @@
+package com.mindex.challenge.reactive;
+
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeePage;
+import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.exception.EmployeeNotFoundException;
+import com.mindex.challenge.exception.InvalidDirectReportsException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux counterpart of {@link com.mindex.challenge.controller.EmployeeController}, serving the core employee
+ * endpoints and the keyset listing on the same URLs with the same JSON when the reactive profile is active.
+ */
+@Profile("reactive")
+@RestController
+public class ReactiveEmployeeController {
+    private static final Logger LOG = LoggerFactory.getLogger(ReactiveEmployeeController.class);
+
+    @Autowired
+    private ReactiveEmployeeService employeeService;
+
+    /**
+     * Create Employee request
+     * @param employee
+     */
+    @PostMapping("/employee")
+    public Mono<Employee> createEmployee(@RequestBody Employee employee) {
+        LOG.debug("Received employee create request for [{}]", employee);
+        return employeeService.createEmployee(employee)
+                .onErrorMap(e -> new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                        "Error creating Employee. Reason: " + e));
+    }
+
+    /**
+     * Get Employee by id request
+     * @param id
+     */
+    @GetMapping("/employee/{id}")
+    public Mono<Employee> getEmployee(@PathVariable String id) {
+        LOG.debug("Received get employee request for id [{}]", id);
+        return employeeService.getEmployee(id)
+                .onErrorMap(e -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Cannot find employee with id: " + id + " reason: " + e));
+    }
+
+    /**
+     * List Employees in id order, one page at a time
+     * @param after optional id of the last employee on the previous page
+     * @param limit maximum number of employees on the page
+     */
+    @GetMapping("/employee")
+    public Mono<EmployeePage> getEmployeePage(@RequestParam(required = false) String after,
+                                              @RequestParam(defaultValue = "100") int limit) {
+        LOG.debug("Received list employees request after id [{}]", after);
+        return employeeService.getEmployeePage(after, limit)
+                .onErrorMap(IllegalArgumentException.class, e -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Cannot list employees. Reason: " + e));
+    }
+
+    /**
+     * Get the number of reports by id request
+     * @param id
+     */
+    @GetMapping("/employee/numberOfReports/{id}")
+    public Mono<ReportingStructure> getEmployeeNumberOfReports(@PathVariable String id) {
+        LOG.debug("Received get employee number of reports request for employee with id: [{}]", id);
+        return employeeService.getEmployeeReports(id)
+                .onErrorMap(e -> e instanceof EmployeeNotFoundException
+                        ? new ResponseStatusException(HttpStatus.NOT_FOUND,
+                                "Cannot find employee with id: " + id + " reason: " + e)
+                        : new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                                "Error occurred while processing the employee reports for employee with id: " + id + " reason: " + e));
+    }
+
+    /**
+     * Update Employee request
+     * @param id
+     * @param employee
+     */
+    @PutMapping("/employee/{id}")
+    public Mono<Employee> updateEmployee(@PathVariable String id, @RequestBody Employee employee) {
+        LOG.debug("Received update employee request for employee with id: [{}]", id);
+
+        employee.setEmployeeId(id);
+        return employeeService.updateEmployee(employee)
+                .onErrorMap(e -> e instanceof EmployeeNotFoundException
+                        ? new ResponseStatusException(HttpStatus.NOT_FOUND,
+                                "Cannot find employee with id: " + id + " reason: " + e)
+                        : e instanceof InvalidDirectReportsException
+                        ? new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                "Error Updating Employee with id" + id + " reason: " + e)
+                        : new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                                "Error Updating Employee with id" + id + " reason: " + e));
+    }
+
+    /**
+     * Create Compensation for Employee
+     * @param id
+     * @param compensation
+     */
+    @PostMapping("/employee/compensation/{id}")
+    public Mono<Compensation> createEmployeeCompensation(@PathVariable String id, @RequestBody Compensation compensation) {
+        LOG.debug("Received employee create compensation request for employee with id: [{}]", id);
+        return employeeService.createEmployeeCompensation(id, compensation)
+                .onErrorMap(e -> e instanceof EmployeeNotFoundException
+                        ? new ResponseStatusException(HttpStatus.NOT_FOUND,
+                                "Cannot find employee with id: " + id + " reason: " + e)
+                        : new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                                "Error creating compensation for employee with id: " + id + " reason: " + e));
+    }
+
+    /**
+     * Get Employee Compensation request
+     * @param id
+     */
+    @GetMapping("/employee/compensation/{id}")
+    public Mono<Compensation> getEmployeeCompensation(@PathVariable String id) {
+        LOG.debug("Received get employee compensation request for employee with id: [{}]", id);
+        return employeeService.getEmployeeCompensation(id)
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("Employee has no compensation")))
+                .onErrorMap(e -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Cannot find compensation for employee with id: " + id + " reason: " + e));
+    }
+}
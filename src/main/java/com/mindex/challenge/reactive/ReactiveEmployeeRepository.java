@@ -0,0 +1,26 @@
+package com.mindex.challenge.reactive;
+
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.data.mongodb.repository.Update;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking view of the same employee collection as {@link com.mindex.challenge.dao.EmployeeRepository}. It lives
+ * outside the dao package so the blocking repository scan does not pick it up.
+ */
+@Repository
+public interface ReactiveEmployeeRepository extends ReactiveMongoRepository<Employee, String>, ReactiveEmployeeRepositoryCustom {
+
+    // employees with ids after the given id, ordered and limited by the pageable
+    Flux<Employee> findByEmployeeIdGreaterThan(String afterEmployeeId, Pageable pageable);
+
+    // sets the compensation of the employee and bumps its version with a single targeted update, emits the number
+    // of employees matched
+    @Update("{ '$set' : { 'compensation' : ?1 }, '$inc' : { 'version' : 1 } }")
+    Mono<Long> findAndSetCompensationByEmployeeId(String employeeId, Compensation compensation);
+}
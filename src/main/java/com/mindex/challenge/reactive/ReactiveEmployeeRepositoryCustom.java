@@ -0,0 +1,11 @@
+package com.mindex.challenge.reactive;
+
+import com.mindex.challenge.data.Employee;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveEmployeeRepositoryCustom {
+
+    // replaces an existing employee and bumps its version in a single write, emits the updated employee or completes
+    // empty when there is no such employee
+    Mono<Employee> replaceEmployee(Employee employee);
+}
@@ -0,0 +1,23 @@
+package com.mindex.challenge.reactive;
+
+import com.mindex.challenge.dao.EmployeeRepositoryCustomImpl;
+import com.mindex.challenge.data.Employee;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Mono;
+
+public class ReactiveEmployeeRepositoryCustomImpl implements ReactiveEmployeeRepositoryCustom {
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Override
+    public Mono<Employee> replaceEmployee(Employee employee) {
+        Query query = Query.query(Criteria.where("employeeId").is(employee.getEmployeeId()));
+        return reactiveMongoTemplate.findAndModify(query, EmployeeRepositoryCustomImpl.replacement(employee),
+                FindAndModifyOptions.options().returnNew(true), Employee.class);
+    }
+}
@@ -0,0 +1,17 @@
+package com.mindex.challenge.reactive;
+
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeePage;
+import com.mindex.challenge.data.ReportingStructure;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveEmployeeService {
+    Mono<Employee> createEmployee(Employee employee);
+    Mono<Employee> getEmployee(String id);
+    Mono<EmployeePage> getEmployeePage(String after, int limit);
+    Mono<ReportingStructure> getEmployeeReports(String id);
+    Mono<Employee> updateEmployee(Employee employee);
+    Mono<Compensation> createEmployeeCompensation(String id, Compensation compensation);
+    Mono<Compensation> getEmployeeCompensation(String id);
+}
@@ -0,0 +1,169 @@
+package com.mindex.challenge.reactive;
+
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeePage;
+import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.exception.EmployeeNotFoundException;
+import com.mindex.challenge.exception.InvalidDirectReportsException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+@Profile("reactive")
+@Service
+public class ReactiveEmployeeServiceImpl implements ReactiveEmployeeService {
+    private static final Logger LOG = LoggerFactory.getLogger(ReactiveEmployeeServiceImpl.class);
+
+    @Autowired
+    private ReactiveEmployeeRepository employeeRepository;
+
+    @Value("${employee.page.max-limit:1000}")
+    private int maxPageLimit;
+
+    // method to create a new employee
+    @Override
+    public Mono<Employee> createEmployee(Employee employee) {
+        LOG.debug("Creating employee a new employee");
+
+        employee.setEmployeeId(UUID.randomUUID().toString());
+        return employeeRepository.insert(employee);
+    }
+
+    // method to get an employee's info, errors with EmployeeNotFoundException when there is no such employee
+    @Override
+    public Mono<Employee> getEmployee(String id) {
+        LOG.debug("Retrieving employee with id: [{}]", id);
+
+        return employeeRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new EmployeeNotFoundException(id)));
+    }
+
+    // method to list a page of employees in id order, starting after the given id
+    @Override
+    public Mono<EmployeePage> getEmployeePage(String after, int limit) {
+        LOG.debug("Retrieving up to {} employees after id: [{}]", limit, after);
+
+        if (limit < 1 || limit > maxPageLimit) {
+            return Mono.error(new IllegalArgumentException("limit must be between 1 and " + maxPageLimit + ": " + limit));
+        }
+        return employeeRepository.findByEmployeeIdGreaterThan(after == null ? "" : after,
+                        PageRequest.of(0, limit, Sort.by("employeeId")))
+                .collectList()
+                .map(employees -> new EmployeePage(employees,
+                        employees.size() == limit ? employees.get(employees.size() - 1).getEmployeeId() : null));
+    }
+
+    // method to count the distinct employees below an employee, one $in query per level of the hierarchy
+    @Override
+    public Mono<ReportingStructure> getEmployeeReports(String id) {
+        LOG.debug("Retrieving the number of employee reports for employee with id: [{}]", id);
+
+        return getEmployee(id).flatMap(employee -> {
+            // only touched from the expand callbacks, which run one level after another
+            Set<String> visited = new HashSet<>();
+            visited.add(id);
+            return Mono.just(unvisitedReports(List.of(employee), visited))
+                    .expand(level -> level.isEmpty() ? Mono.empty() : employeeRepository.findAllById(level)
+                            .collectList()
+                            .map(employees -> unvisitedReports(employees, visited)))
+                    .map(List::size)
+                    .reduce(0, Integer::sum)
+                    .map(numberOfReports -> {
+                        ReportingStructure reportingStructure = new ReportingStructure();
+                        reportingStructure.setNumberOfReports(numberOfReports);
+                        reportingStructure.setEmployee(id);
+                        return reportingStructure;
+                    });
+        });
+    }
+
+    // method to collect the ids of the direct reports of the employees that have not been counted yet
+    private static List<String> unvisitedReports(List<Employee> employees, Set<String> visited) {
+        List<String> reportIds = new ArrayList<>();
+        for (Employee employee : employees) {
+            if (employee.getDirectReports() == null) {
+                continue;
+            }
+            for (Employee report : employee.getDirectReports()) {
+                String reportId = report.getEmployeeId();
+                if (reportId != null && !reportId.isEmpty() && visited.add(reportId)) {
+                    reportIds.add(reportId);
+                }
+            }
+        }
+        return reportIds;
+    }
+
+    // method to update an employee whatever version it is at, replacing it in a single write so concurrent updates
+    // do not conflict. Errors with EmployeeNotFoundException when there is no such employee
+    @Override
+    public Mono<Employee> updateEmployee(Employee employee) {
+        LOG.debug("Updating employee with id: [{}]", employee.getEmployeeId());
+
+        return validateDirectReports(employee.getEmployeeId(), employee.getDirectReports())
+                .then(Mono.defer(() -> employeeRepository.replaceEmployee(employee)))
+                .switchIfEmpty(Mono.error(() -> new EmployeeNotFoundException(employee.getEmployeeId())));
+    }
+
+    // method to reject direct reports that list the employee itself, list an employee twice or close a reporting cycle,
+    // walking down from the new reports one $in query per level
+    private Mono<Void> validateDirectReports(String employeeId, List<Employee> directReports) {
+        if (directReports == null || directReports.isEmpty()) {
+            return Mono.empty();
+        }
+        Set<String> visited = new HashSet<>();
+        List<String> reportIds = new ArrayList<>();
+        for (Employee report : directReports) {
+            String reportId = report.getEmployeeId();
+            if (reportId == null || reportId.isEmpty()) {
+                continue;
+            }
+            if (reportId.equals(employeeId)) {
+                return Mono.error(new InvalidDirectReportsException(employeeId, "an employee cannot report to themselves"));
+            }
+            if (!visited.add(reportId)) {
+                return Mono.error(new InvalidDirectReportsException(employeeId,
+                        "employee " + reportId + " is listed more than once"));
+            }
+            reportIds.add(reportId);
+        }
+        return Mono.just(reportIds)
+                .expand(level -> level.isEmpty() ? Mono.empty() : employeeRepository.findAllById(level)
+                        .collectList()
+                        .map(employees -> unvisitedReports(employees, visited)))
+                .any(level -> level.contains(employeeId))
+                .flatMap(closesCycle -> closesCycle
+                        ? Mono.error(new InvalidDirectReportsException(employeeId, "the new reports would close a reporting cycle"))
+                        : Mono.empty());
+    }
+
+    // method to set the compensation of an employee with a single targeted update
+    @Override
+    public Mono<Compensation> createEmployeeCompensation(String id, Compensation compensation) {
+        LOG.debug("Creating employee compensation for employee with id: [{}]", id);
+
+        return employeeRepository.findAndSetCompensationByEmployeeId(id, compensation)
+                .flatMap(matched -> matched > 0 ? Mono.just(compensation) : Mono.error(new EmployeeNotFoundException(id)));
+    }
+
+    // method to retrieve the employee compensation, completes empty when the employee has none
+    @Override
+    public Mono<Compensation> getEmployeeCompensation(String id) {
+        LOG.debug("Retrieving employee compensation with id: [{}]", id);
+
+        return getEmployee(id).mapNotNull(Employee::getCompensation);
+    }
+}
@@ -1,14 +1,47 @@
 package com.mindex.challenge.service;
 
+import com.mindex.challenge.data.BulkItemResult;
 import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.CompensationRollup;
 import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeePage;
+import com.mindex.challenge.data.HierarchyNode;
+import com.mindex.challenge.data.MultiGetResult;
 import com.mindex.challenge.data.ReportingStructure;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface EmployeeService {
     Employee createEmployee(Employee employee);
     Employee getEmployee(String id);
+    Optional<Employee> findEmployee(String id);
+    Employee getEmployee(String id, Set<String> fields);
+    Optional<Employee> findEmployee(String id, Set<String> fields);
+    Long getEmployeeVersion(String id);
+    List<Employee> getEmployees(Collection<String> ids, Set<String> fields);
+    MultiGetResult getEmployeesById(List<String> ids, boolean expandReports);
+    EmployeePage getEmployeePage(String after, int limit);
+    Page<Employee> findEmployees(String department, String position, String lastNamePrefix, Pageable pageable);
+    Stream<Employee> exportEmployees();
     ReportingStructure getEmployeeReports(String id);
+    CompensationRollup getCompensationRollup(String id);
+    CompensationRollup getDepartmentCompensationRollup(String department);
+    Stream<HierarchyNode> getEmployeeHierarchy(String id, int maxDepth);
     Employee updateEmployee(Employee employee);
+    Employee updateEmployee(Employee employee, Long expectedVersion);
+    Employee patchEmployee(String id, Map<String, Object> fields);
     Compensation createEmployeeCompensation(String id, Compensation compensation);
-    Compensation getEmployeeCompensation(String id);
+    Optional<Compensation> findEmployeeCompensation(String id);
+    List<BulkItemResult> createEmployees(List<Employee> employees);
+    List<BulkItemResult> createEmployees(Iterator<Employee> employees);
+    List<BulkItemResult> upsertEmployees(List<Employee> employees);
+    List<BulkItemResult> upsertEmployees(Iterator<Employee> employees);
 }
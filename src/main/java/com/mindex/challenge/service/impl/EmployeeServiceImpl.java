@@ -1,64 +1,478 @@
 package com.mindex.challenge.service.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.dao.EmployeeCache;
+import com.mindex.challenge.dao.EmployeeIdFilter;
 import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.BulkItemResult;
 import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.CompensationRollup;
 import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeePage;
+import com.mindex.challenge.data.HierarchyNode;
+import com.mindex.challenge.data.MultiGetResult;
 import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.exception.EmployeeNotFoundException;
+import com.mindex.challenge.exception.EmployeeVersionConflictException;
+import com.mindex.challenge.exception.InvalidDirectReportsException;
+import com.mindex.challenge.metrics.RequestMetrics;
 import com.mindex.challenge.service.EmployeeService;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.StreamSupport;
+import java.util.stream.Stream;
 
+@Timed("employee.service")
 @Service
 public class EmployeeServiceImpl implements EmployeeService {
 
     private static final Logger LOG = LoggerFactory.getLogger(EmployeeServiceImpl.class);
 
+    // employee fields that can be changed through patchEmployee
+    private static final Map<String, Function<Employee, Object>> PATCHABLE_FIELDS = Map.of(
+            "firstName", Employee::getFirstName,
+            "lastName", Employee::getLastName,
+            "position", Employee::getPosition,
+            "department", Employee::getDepartment,
+            "compensation", Employee::getCompensation,
+            "directReports", Employee::getDirectReports);
+
+    // employee fields that can be requested in a projected read
+    private static final Set<String> PROJECTABLE_FIELDS = Set.of(
+            "employeeId", "firstName", "lastName", "position", "department", "compensation", "directReports",
+            "version");
+
+    private static final Set<String> VERSION_FIELD = Set.of("version");
+
+    // order of search results when the caller does not ask for one
+    private static final Sort DEFAULT_SEARCH_SORT = Sort.by("employeeId");
+
+    /**
+     * How getEmployeeReports walks the reporting hierarchy
+     */
+    public enum ReportTraversal {
+        // answer from the in-memory reporting hierarchy index
+        INDEX,
+        // fetch each level of the hierarchy from the repository with a single bulk id query
+        BATCHED,
+        // fetch each employee in the hierarchy from the repository one at a time
+        RECURSIVE,
+        // fetch the employees of sibling subtrees concurrently on virtual threads
+        PARALLEL
+    }
+
     @Autowired
     private EmployeeRepository employeeRepository;
 
+    @Autowired
+    private EmployeeCache employeeCache;
+
+    @Autowired
+    private EmployeeIdFilter employeeIdFilter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${employee.reports.traversal:index}")
+    private ReportTraversal reportTraversal;
+
+    @Value("${employee.reports.parallelism:16}")
+    private int reportParallelism;
+
+    private ParallelReportCounter parallelReportCounter;
+
+    @Value("${employee.bulk.chunk-size:1000}")
+    private int bulkChunkSize;
+
+    @Value("${employee.hierarchy.batch-size:500}")
+    private int hierarchyBatchSize;
+
+    @Value("${employee.page.max-limit:1000}")
+    private int maxPageLimit;
+
+    @Value("${employee.mget.max-ids:1000}")
+    private int maxMultiGetIds;
+
+    @Value("${employee.write-behind.enabled:false}")
+    private boolean writeBehindEnabled;
+
+    @Value("${employee.write-behind.max-delay:200ms}")
+    private Duration writeBehindMaxDelay;
+
+    @Value("${employee.write-behind.max-pending:1000}")
+    private int writeBehindMaxPending;
+
+    // acknowledged updates that have not been written to the repository yet, null unless write-behind is enabled
+    private WriteBehindBuffer writeBehindBuffer;
+
+    private final OrgGraphIndex orgGraphIndex = new OrgGraphIndex();
+
+    @PostConstruct
+    public void init() {
+        parallelReportCounter = new ParallelReportCounter(this::getEmployee, reportParallelism);
+        if (writeBehindEnabled) {
+            writeBehindBuffer = new WriteBehindBuffer(employeeRepository::bulkReplace,
+                    employee -> employeeCache.invalidate(employee.getEmployeeId()),
+                    writeBehindMaxPending, writeBehindMaxDelay);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        parallelReportCounter.close();
+        if (writeBehindBuffer != null) {
+            writeBehindBuffer.close();
+        }
+    }
+
+    // method to get the pending write-behind state of an employee, or null when nothing is pending for it
+    private Employee pendingEmployee(String id) {
+        return writeBehindBuffer == null ? null : writeBehindBuffer.get(id);
+    }
+
+    // method to write out any pending updates of the given employees before they are written directly
+    private void flushPending(Collection<String> ids) {
+        if (writeBehindBuffer != null) {
+            writeBehindBuffer.flush(ids);
+        }
+    }
+
+    // method to build the reporting hierarchy index once the seed data has been loaded
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOrgGraphIndex() {
+        orgGraphIndex();
+    }
+
+    // method to get the reporting hierarchy index, building it from the repository on first use
+    private OrgGraphIndex orgGraphIndex() {
+        if (!orgGraphIndex.isBuilt()) {
+            synchronized (orgGraphIndex) {
+                if (!orgGraphIndex.isBuilt()) {
+                    LOG.debug("Building the reporting hierarchy index");
+                    try (Stream<Employee> employees = employeeRepository.streamReportingLines()) {
+                        orgGraphIndex.build(employees);
+                    }
+                }
+            }
+        }
+        return orgGraphIndex;
+    }
+
     // method to create a new employee
     @Override
     public Employee createEmployee(Employee employee) {
         LOG.debug("Creating employee a new employee");
 
         employee.setEmployeeId(UUID.randomUUID().toString());
+        employee.setVersion(0L);
+        validateDirectReports(employee.getEmployeeId(), employee.getDirectReports());
 
+        employeeIdFilter.add(employee.getEmployeeId());
         employeeRepository.insert(employee);
+        employeeCache.invalidate(employee.getEmployeeId());
+        orgGraphIndex().put(employee);
 
         LOG.debug("Successfully created employee with id: [{}]", employee.getEmployeeId());
         return employee;
     }
 
-    // method to get an employee's info from the repository
+    // method to get an employee's info through the employee cache
     @Override
     public Employee getEmployee(String id) {
+        return findEmployee(id).orElseThrow(() -> new EmployeeNotFoundException(id));
+    }
+
+    // method to look an employee up through the employee cache, ids the id filter rules out never reach the database
+    @Override
+    public Optional<Employee> findEmployee(String id) {
         LOG.debug("Retrieving employee with id: [{}]", id);
 
-        Employee employee = employeeRepository.findByEmployeeId(id);
+        Employee employee = pendingEmployee(id);
+        if (employee == null && employeeIdFilter.mightContain(id)) {
+            employee = employeeCache.get(id);
+        }
 
         if (employee == null) {
-            LOG.error("Cannot find employee with id: [{}] in the database", id);
-            throw new RuntimeException();
+            // unknown ids are routine, logging them as errors would only make stale links expensive
+            LOG.debug("Cannot find employee with id: [{}] in the database", id);
+            return Optional.empty();
         }
         LOG.debug("Successful retrieval of employee with id: [{}]", id);
-        return employee;
+        return Optional.of(employee);
+    }
+
+    // method to get only the given fields of an employee
+    @Override
+    public Employee getEmployee(String id, Set<String> fields) {
+        return findEmployee(id, fields).orElseThrow(() -> new EmployeeNotFoundException(id));
+    }
+
+    // method to look up only the given fields of an employee, pushing the projection down to the repository on a
+    // cache miss. Ids the id filter rules out never reach the cache or the database
+    @Override
+    public Optional<Employee> findEmployee(String id, Set<String> fields) {
+        LOG.debug("Retrieving fields {} of employee with id: [{}]", fields, id);
+        checkProjectableFields(fields);
+
+        Employee employee = null;
+        if (employeeIdFilter.mightContain(id)) {
+            Employee cachedEmployee = pendingEmployee(id);
+            if (cachedEmployee == null) {
+                cachedEmployee = employeeCache.getIfPresent(id);
+            }
+            employee = cachedEmployee != null
+                    ? project(cachedEmployee, fields)
+                    : employeeRepository.findFieldsByEmployeeId(id, fields);
+        }
+
+        if (employee == null) {
+            LOG.debug("Cannot find employee with id: [{}] in the database", id);
+            return Optional.empty();
+        }
+        LOG.debug("Successful retrieval of fields of employee with id: [{}]", id);
+        return Optional.of(employee);
+    }
+
+    // method to get the current version of an employee without reading the rest of it when it is not cached
+    @Override
+    public Long getEmployeeVersion(String id) {
+        return getEmployee(id, VERSION_FIELD).getVersion();
+    }
+
+    // method to get the given fields of all employees with the given ids, unknown ids are left out
+    @Override
+    public List<Employee> getEmployees(Collection<String> ids, Set<String> fields) {
+        LOG.debug("Retrieving fields {} of {} employees", fields, ids.size());
+        checkProjectableFields(fields);
+
+        List<String> candidates = ids.stream().filter(employeeIdFilter::mightContain).toList();
+        List<Employee> employees = candidates.isEmpty()
+                ? new ArrayList<>()
+                : employeeRepository.findFieldsByEmployeeIdIn(candidates, fields);
+        if (writeBehindBuffer != null) {
+            employees.replaceAll(employee -> {
+                Employee pendingEmployee = pendingEmployee(employee.getEmployeeId());
+                return pendingEmployee != null ? project(pendingEmployee, fields) : employee;
+            });
+        }
+        return employees;
+    }
+
+    // method to get whole employees by id, answering from pending writes and the cache first and reading the rest
+    // with one query, optionally replacing the direct reports of every employee found with the full reports
+    @Override
+    public MultiGetResult getEmployeesById(List<String> ids, boolean expandReports) {
+        LOG.debug("Retrieving {} employees by id, expanding reports: {}", ids.size(), expandReports);
+
+        Set<String> uniqueIds = new LinkedHashSet<>(ids);
+        if (uniqueIds.size() > maxMultiGetIds) {
+            throw new IllegalArgumentException(
+                    "cannot get more than " + maxMultiGetIds + " employees at once: " + uniqueIds.size());
+        }
+        Map<String, Employee> found = resolveEmployees(uniqueIds);
+
+        Map<String, Employee> employees = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String id : uniqueIds) {
+            if (found.containsKey(id)) {
+                employees.put(id, found.get(id));
+            } else {
+                missing.add(id);
+            }
+        }
+
+        if (expandReports) {
+            Set<String> reportIds = new LinkedHashSet<>(reportIds(employees.values()));
+            reportIds.removeAll(found.keySet());
+            found.putAll(resolveEmployees(reportIds));
+            employees.replaceAll((id, employee) -> withExpandedReports(employee, found));
+        }
+
+        LOG.debug("Successfully retrieved {} employees by id, {} missing", employees.size(), missing.size());
+        return new MultiGetResult(employees, missing);
+    }
+
+    // method to look the employees up in pending writes and the cache, fetching every one that is in neither with
+    // a single query. Fetched employees are not cached, a write racing the query could otherwise leave them stale
+    private Map<String, Employee> resolveEmployees(Collection<String> ids) {
+        Map<String, Employee> resolved = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String id : ids) {
+            Employee employee = pendingEmployee(id);
+            if (employee == null) {
+                employee = employeeCache.getIfPresent(id);
+            }
+            if (employee != null) {
+                resolved.put(id, employee);
+            } else if (employeeIdFilter.mightContain(id)) {
+                misses.add(id);
+            }
+        }
+        if (!misses.isEmpty()) {
+            RequestMetrics.recordNodesVisited(misses.size());
+            for (Employee employee : employeeRepository.findFieldsByEmployeeIdIn(misses, null)) {
+                resolved.put(employee.getEmployeeId(), employee);
+            }
+        }
+        return resolved;
+    }
+
+    // method to copy an employee with each direct report replaced by the full report when it was found
+    private static Employee withExpandedReports(Employee employee, Map<String, Employee> found) {
+        if (employee.getDirectReports() == null) {
+            return employee;
+        }
+        List<Employee> reports = new ArrayList<>(employee.getDirectReports().size());
+        for (Employee report : employee.getDirectReports()) {
+            reports.add(found.getOrDefault(report.getEmployeeId(), report));
+        }
+        Employee expanded = project(employee, PROJECTABLE_FIELDS);
+        expanded.setDirectReports(reports);
+        return expanded;
+    }
+
+    // method to get the page of employees that follows the given id
+    @Override
+    public EmployeePage getEmployeePage(String after, int limit) {
+        LOG.debug("Retrieving up to {} employees after id: [{}]", limit, after);
+
+        if (limit < 1 || limit > maxPageLimit) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxPageLimit + ": " + limit);
+        }
+        List<Employee> employees = employeeRepository.findPageAfter(after, limit);
+        String next = employees.size() == limit ? employees.get(employees.size() - 1).getEmployeeId() : null;
+
+        LOG.debug("Successfully retrieved {} employees after id: [{}]", employees.size(), after);
+        return new EmployeePage(employees, next);
+    }
+
+    // method to find a page of employees by department and position, or by last name prefix
+    @Override
+    public Page<Employee> findEmployees(String department, String position, String lastNamePrefix, Pageable pageable) {
+        LOG.debug("Searching for employees with department [{}], position [{}] and last name prefix [{}]",
+                department, position, lastNamePrefix);
+
+        if (pageable.getPageSize() > maxPageLimit) {
+            throw new IllegalArgumentException(
+                    "page size cannot be larger than " + maxPageLimit + ": " + pageable.getPageSize());
+        }
+        if (lastNamePrefix != null && (department != null || position != null)) {
+            throw new IllegalArgumentException("A last name prefix cannot be combined with department or position");
+        }
+        // unsorted matches come back in no particular order, so consecutive pages could repeat or skip employees
+        if (pageable.getSort().isUnsorted()) {
+            pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), DEFAULT_SEARCH_SORT);
+        }
+
+        if (lastNamePrefix != null) {
+            return employeeRepository.findByLastNameStartingWith(lastNamePrefix, pageable);
+        } else if (department != null && position != null) {
+            return employeeRepository.findByDepartmentAndPosition(department, position, pageable);
+        } else if (department != null) {
+            return employeeRepository.findByDepartment(department, pageable);
+        } else if (position != null) {
+            return employeeRepository.findByPosition(position, pageable);
+        }
+        throw new IllegalArgumentException("A department, position or last name prefix is required");
+    }
+
+    // method to stream every employee, the caller must close the stream
+    @Override
+    public Stream<Employee> exportEmployees() {
+        LOG.debug("Exporting all employees");
+
+        return employeeRepository.streamAll();
+    }
+
+    private static void checkProjectableFields(Set<String> fields) {
+        if (fields == null) {
+            return;
+        }
+        for (String field : fields) {
+            if (!PROJECTABLE_FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Unknown employee field: " + field);
+            }
+        }
+    }
+
+    // method to copy only the given fields of an employee, mirroring a database projection
+    private static Employee project(Employee employee, Set<String> fields) {
+        if (fields == null) {
+            return employee;
+        }
+        Employee projected = new Employee();
+        projected.setEmployeeId(employee.getEmployeeId());
+        if (fields.contains("firstName")) {
+            projected.setFirstName(employee.getFirstName());
+        }
+        if (fields.contains("lastName")) {
+            projected.setLastName(employee.getLastName());
+        }
+        if (fields.contains("position")) {
+            projected.setPosition(employee.getPosition());
+        }
+        if (fields.contains("department")) {
+            projected.setDepartment(employee.getDepartment());
+        }
+        if (fields.contains("compensation")) {
+            projected.setCompensation(employee.getCompensation());
+        }
+        if (fields.contains("directReports")) {
+            projected.setDirectReports(employee.getDirectReports());
+        }
+        if (fields.contains("version")) {
+            projected.setVersion(employee.getVersion());
+        }
+        return projected;
     }
 
     // method to get employee reports
     @Override
     public ReportingStructure getEmployeeReports(String id) {
-        LOG.debug("Retrieving the number of employee reports for employee with id: [{}]", id);
-
-        Employee employee = getEmployee(id);
-        ReportingStructure reportingStructure = new ReportingStructure();
+        LOG.debug("Retrieving the number of employee reports for employee with id: [{}] using {} traversal",
+                id, reportTraversal);
 
-        int numberOfReports = reportCount(employee);
+        int numberOfReports = switch (reportTraversal) {
+            case INDEX -> indexedReportCount(id);
+            case BATCHED -> batchedReportCount(getEmployee(id));
+            case RECURSIVE -> reportCount(getEmployee(id));
+            case PARALLEL -> parallelReportCounter.count(getEmployee(id));
+        };
 
+        ReportingStructure reportingStructure = new ReportingStructure();
         reportingStructure.setNumberOfReports(numberOfReports);
         reportingStructure.setEmployee(id);
 
@@ -67,59 +481,398 @@ public class EmployeeServiceImpl implements EmployeeService {
 
     }
 
-    // method to recursively count the direct reports
-    private int reportCount(Employee employee) {
+    // method to get the salary rollup of an employee and everyone below them from the reporting hierarchy index
+    @Override
+    public CompensationRollup getCompensationRollup(String id) {
+        LOG.debug("Retrieving the compensation rollup for employee with id: [{}]", id);
+
+        CompensationRollup rollup = orgGraphIndex().subtreeRollup(id);
+
+        if (rollup == null) {
+            LOG.debug("Cannot find employee with id: [{}] in the reporting hierarchy", id);
+            throw new EmployeeNotFoundException(id);
+        }
+        return rollup;
+    }
+
+    // method to get the salary rollup of a department from the reporting hierarchy index
+    @Override
+    public CompensationRollup getDepartmentCompensationRollup(String department) {
+        LOG.debug("Retrieving the compensation rollup for department [{}]", department);
+
+        return orgGraphIndex().departmentRollup(department);
+    }
+
+    // method to lazily walk the reporting hierarchy below an employee, the employee itself is looked up eagerly
+    @Override
+    public Stream<HierarchyNode> getEmployeeHierarchy(String id, int maxDepth) {
+        LOG.debug("Retrieving the reporting hierarchy up to depth {} for employee with id: [{}]", maxDepth, id);
+
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("maxDepth cannot be negative: " + maxDepth);
+        }
+        HierarchyIterator iterator = new HierarchyIterator(employeeRepository, getEmployee(id), maxDepth,
+                hierarchyBatchSize);
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    // method to count the reports from the reporting hierarchy index
+    private int indexedReportCount(String id) {
+        int count = orgGraphIndex().countReports(id);
+
+        if (count < 0) {
+            LOG.debug("Cannot find employee with id: [{}] in the reporting hierarchy", id);
+            throw new EmployeeNotFoundException(id);
+        }
+        return count;
+    }
+
+    // method to count the reports one level at a time, fetching every employee on a level with one query
+    private int batchedReportCount(Employee employee) {
         int count = 0;
-        if (employee.getDirectReports() != null && !employee.getDirectReports().isEmpty()) {
-            List<Employee> directReports = employee.getDirectReports();
-            count += directReports.size();
-            LOG.debug("Found {} reports for employee with id: [{}]. Searching the database to find their reports", directReports.size(), employee.getEmployeeId());
-            for (Employee report : directReports) {
-                if (report.getEmployeeId() != null && !report.getEmployeeId().isEmpty()) {
-                    LOG.debug("Searching the database for reports for employee with id: [{}]", report.getEmployeeId());
-                    count += reportCount(getEmployee(report.getEmployeeId()));
+        // employees already counted, so a reporting cycle or an employee listed twice is only counted once
+        Set<String> visited = new HashSet<>();
+        visited.add(employee.getEmployeeId());
+        List<String> level = unvisited(reportIds(List.of(employee)), visited);
+        while (!level.isEmpty()) {
+            count += level.size();
+            RequestMetrics.recordNodesVisited(level.size());
+            LOG.debug("Searching the database for {} reports on the next level below employee with id: [{}]",
+                    level.size(), employee.getEmployeeId());
+            List<Employee> reports = employeeRepository.findByEmployeeIdIn(level);
+
+            if (reports.size() < level.size()) {
+                // a dangling report is answered the same way as the recursive traversal's lookup of it
+                String missingId = missingId(level, reports);
+                LOG.debug("Cannot find report with id: [{}] below employee with id: [{}] in the database",
+                        missingId, employee.getEmployeeId());
+                throw new EmployeeNotFoundException(missingId);
+            }
+            level = unvisited(reportIds(reports), visited);
+        }
+        LOG.debug("Successfully found {} reports for employee with id: [{}]", count, employee.getEmployeeId());
+        return count;
+    }
+
+    // method to find an id that was asked for but not returned
+    private static String missingId(List<String> ids, List<Employee> employees) {
+        Set<String> found = new HashSet<>();
+        for (Employee employee : employees) {
+            found.add(employee.getEmployeeId());
+        }
+        for (String id : ids) {
+            if (!found.contains(id)) {
+                return id;
+            }
+        }
+        return ids.get(0);
+    }
+
+    // method to keep the ids that have not been visited yet, marking them as visited
+    private static List<String> unvisited(List<String> ids, Set<String> visited) {
+        List<String> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            if (visited.add(id)) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    // method to collect the ids of the direct reports of the given employees
+    private static List<String> reportIds(Collection<Employee> employees) {
+        List<String> ids = new ArrayList<>();
+        for (Employee employee : employees) {
+            if (employee.getDirectReports() != null) {
+                for (Employee report : employee.getDirectReports()) {
+                    if (report.getEmployeeId() != null && !report.getEmployeeId().isEmpty()) {
+                        ids.add(report.getEmployeeId());
+                    }
                 }
             }
         }
+        return ids;
+    }
+
+    // method to count the reports depth first with one lookup per employee, using an explicit stack so the depth
+    // of the hierarchy is limited by the heap rather than the thread stack
+    private int reportCount(Employee employee) {
+        RequestMetrics.recordNodesVisited(1);
+        // employees already counted, so a reporting cycle or an employee listed twice is only counted once
+        Set<String> visited = new HashSet<>();
+        visited.add(employee.getEmployeeId());
+        Deque<String> pending = new ArrayDeque<>(unvisited(reportIds(List.of(employee)), visited));
+        int count = pending.size();
+        while (!pending.isEmpty()) {
+            String reportId = pending.pop();
+            LOG.debug("Searching the database for reports for employee with id: [{}]", reportId);
+            RequestMetrics.recordNodesVisited(1);
+            List<String> reports = unvisited(reportIds(List.of(getEmployee(reportId))), visited);
+            count += reports.size();
+            reports.forEach(pending::push);
+        }
         LOG.debug("Successfully found {} reports for employee with id: [{}]", count, employee.getEmployeeId());
         return count;
     }
 
-    // method to update an employee
+    // method to update an employee, whatever version it is at
     @Override
     public Employee updateEmployee(Employee employee) {
-        LOG.debug("Updating employee with id: [{}]", employee.getEmployeeId());
+        return updateEmployee(employee, null);
+    }
+
+    // method to replace an employee, only while it is at the expected version when one is given
+    @Override
+    public Employee updateEmployee(Employee employee, Long expectedVersion) {
+        LOG.debug("Updating employee with id: [{}] at version {}", employee.getEmployeeId(), expectedVersion);
+
+        validateDirectReports(employee.getEmployeeId(), employee.getDirectReports());
+        // an unconditional update of an unknown id creates the employee
+        employeeIdFilter.add(employee.getEmployeeId());
+        String id = employee.getEmployeeId();
+        Employee updatedEmployee = writeBehindBuffer != null
+                ? writeBehindBuffer.write(id, () -> employeeCache.get(id), current -> {
+                    if (expectedVersion != null && (current == null || !expectedVersion.equals(current.getVersion()))) {
+                        throw new EmployeeVersionConflictException(id, expectedVersion);
+                    }
+                    return project(employee, PROJECTABLE_FIELDS);
+                })
+                : employeeRepository.replaceEmployee(employee, expectedVersion);
 
-        return employeeRepository.save(employee);
+        if (updatedEmployee == null) {
+            LOG.debug("Employee with id: [{}] is not at version {}", employee.getEmployeeId(), expectedVersion);
+            throw new EmployeeVersionConflictException(employee.getEmployeeId(), expectedVersion);
+        }
+        if (writeBehindBuffer == null) {
+            employeeCache.invalidate(updatedEmployee.getEmployeeId());
+        }
+        orgGraphIndex().put(updatedEmployee);
+
+        return updatedEmployee;
     }
 
-    // method to create a new compensation object for an employee
+    // method to reject direct reports that list the employee itself, list an employee twice or close a reporting
+    // cycle. Two concurrent updates can still close a cycle between them, the traversals stay safe in that case
+    private void validateDirectReports(String employeeId, List<Employee> directReports) {
+        if (directReports == null || directReports.isEmpty()) {
+            return;
+        }
+        Set<String> reportIds = new HashSet<>();
+        for (Employee report : directReports) {
+            String reportId = report.getEmployeeId();
+            if (reportId == null || reportId.isEmpty()) {
+                continue;
+            }
+            if (reportId.equals(employeeId)) {
+                throw new InvalidDirectReportsException(employeeId, "an employee cannot report to themselves");
+            }
+            if (!reportIds.add(reportId)) {
+                throw new InvalidDirectReportsException(employeeId,
+                        "employee " + reportId + " is listed more than once");
+            }
+        }
+        if (orgGraphIndex().closesCycle(employeeId, reportIds)) {
+            throw new InvalidDirectReportsException(employeeId, "the new reports would close a reporting cycle");
+        }
+    }
+
+    // method to change individual fields of an employee with a single targeted update
+    @Override
+    public Employee patchEmployee(String id, Map<String, Object> fields) {
+        LOG.debug("Patching fields {} of employee with id: [{}]", fields.keySet(), id);
+
+        for (String field : fields.keySet()) {
+            if (!PATCHABLE_FIELDS.containsKey(field)) {
+                throw new IllegalArgumentException("Employee field cannot be patched: " + field);
+            }
+        }
+
+        // convert through Employee so the values have the same types as a full update would
+        Employee patch = objectMapper.convertValue(fields, Employee.class);
+        Map<String, Object> values = new HashMap<>();
+        for (String field : fields.keySet()) {
+            values.put(field, PATCHABLE_FIELDS.get(field).apply(patch));
+        }
+        if (!employeeIdFilter.mightContain(id)) {
+            LOG.debug("Cannot find employee with id: [{}] in the database", id);
+            throw new EmployeeNotFoundException(id);
+        }
+        if (values.containsKey("directReports")) {
+            validateDirectReports(id, patch.getDirectReports());
+        }
+        flushPending(List.of(id));
+
+        Employee patchedEmployee = employeeRepository.updateFields(id, values);
+
+        if (patchedEmployee == null) {
+            LOG.debug("Cannot find employee with id: [{}] in the database", id);
+            throw new EmployeeNotFoundException(id);
+        }
+        employeeCache.invalidate(id);
+        orgGraphIndex().put(patchedEmployee);
+
+        LOG.debug("Successfully patched employee with id: [{}]", id);
+        return patchedEmployee;
+    }
+
+    // method to set the compensation of an employee with a single targeted update
     @Override
     public Compensation createEmployeeCompensation(String id, Compensation compensation) {
         LOG.debug("Creating employee compensation for employee with id: [{}]", id);
 
-        Employee employee = getEmployee(id);
-        employee.setCompensation(compensation);
-        updateEmployee(employee);
+        if (!employeeIdFilter.mightContain(id)) {
+            LOG.debug("Cannot find employee with id: [{}] in the database", id);
+            throw new EmployeeNotFoundException(id);
+        }
+        if (writeBehindBuffer != null) {
+            writeBehindBuffer.write(id, () -> employeeCache.get(id), current -> {
+                if (current == null) {
+                    LOG.debug("Cannot find employee with id: [{}] in the database", id);
+                    throw new EmployeeNotFoundException(id);
+                }
+                Employee employee = project(current, PROJECTABLE_FIELDS);
+                employee.setCompensation(compensation);
+                return employee;
+            });
+        } else if (!employeeRepository.updateCompensation(id, compensation)) {
+            LOG.debug("Cannot find employee with id: [{}] in the database", id);
+            throw new EmployeeNotFoundException(id);
+        } else {
+            employeeCache.invalidate(id);
+        }
+        orgGraphIndex().putSalary(id, compensation.getSalary());
 
         LOG.debug("Successfully created employee compensation for employee with id: [{}]", id);
         return compensation;
     }
 
-    // method to retrieve the employee compensation from the repository
+    // method to look up the employee compensation, empty when the employee is unknown or has no compensation
     @Override
-    public Compensation getEmployeeCompensation(String id) {
+    public Optional<Compensation> findEmployeeCompensation(String id) {
         LOG.debug("Retrieving employee compensation with id: [{}]", id);
 
-        Employee employee = getEmployee(id);
+        Optional<Compensation> compensation = findEmployee(id).map(Employee::getCompensation);
 
-        if (employee.getCompensation() == null) {
-            LOG.error("Cannot find compensation for employee with id: [{}]", id);
-            throw new RuntimeException();
+        if (compensation.isEmpty()) {
+            LOG.debug("Cannot find compensation for employee with id: [{}]", id);
+        } else {
+            LOG.debug("Successfully retrieved compensation for employee with id: [{}]", id);
         }
+        return compensation;
+    }
 
-        LOG.debug("Successfully retrieved compensation for employee with id: [{}]", id);
-        return employee.getCompensation();
+    // method to create a batch of new employees with one bulk write per chunk
+    @Override
+    public List<BulkItemResult> createEmployees(List<Employee> employees) {
+        return createEmployees(employees.iterator());
     }
-}
 
+    // method to create new employees with one bulk write per chunk, reading only one chunk ahead of the writes
+    @Override
+    public List<BulkItemResult> createEmployees(Iterator<Employee> employees) {
+        LOG.debug("Creating new employees");
+
+        List<BulkItemResult> results = bulkWrite(employees, chunk -> {
+            for (Employee employee : chunk) {
+                employee.setEmployeeId(UUID.randomUUID().toString());
+                employee.setVersion(0L);
+            }
+        }, employeeRepository::bulkInsert, BulkItemResult.Status.CREATED);
+
+        LOG.debug("Finished creating {} new employees", results.size());
+        return results;
+    }
+
+    // method to create or replace a batch of employees with one bulk write per chunk, creating those without an id
+    @Override
+    public List<BulkItemResult> upsertEmployees(List<Employee> employees) {
+        return upsertEmployees(employees.iterator());
+    }
+
+    // method to create or replace employees with one bulk write per chunk, reading only one chunk ahead of the writes
+    @Override
+    public List<BulkItemResult> upsertEmployees(Iterator<Employee> employees) {
+        LOG.debug("Upserting employees");
+
+        List<BulkItemResult> results = bulkWrite(employees, chunk -> {
+            for (Employee employee : chunk) {
+                if (employee.getEmployeeId() == null || employee.getEmployeeId().isEmpty()) {
+                    employee.setEmployeeId(UUID.randomUUID().toString());
+                }
+            }
+            flushPending(chunk.stream().map(Employee::getEmployeeId).toList());
+        }, employeeRepository::bulkUpsert, BulkItemResult.Status.UPSERTED);
+
+        LOG.debug("Finished upserting {} employees", results.size());
+        return results;
+    }
+
+    // method to write the employees in chunks as they are read and collect a result for every employee. When the
+    // iterator fails with an UncheckedIOException the employees read so far are still written, and reading stops with
+    // a FAILED result for the employee that could not be read, so the caller learns the ids of everything written
+    private List<BulkItemResult> bulkWrite(Iterator<Employee> employees, Consumer<List<Employee>> prepare,
+                                           Function<List<Employee>, Map<Integer, String>> write,
+                                           BulkItemResult.Status status) {
+        List<BulkItemResult> results = new ArrayList<>();
+        String readError = null;
+        boolean more = true;
+        while (more) {
+            List<Employee> chunk = new ArrayList<>(bulkChunkSize);
+            try {
+                while (chunk.size() < bulkChunkSize && employees.hasNext()) {
+                    chunk.add(employees.next());
+                }
+                more = chunk.size() == bulkChunkSize;
+            } catch (UncheckedIOException e) {
+                readError = e.getCause().getMessage();
+                more = false;
+            }
+            if (!chunk.isEmpty()) {
+                prepare.accept(chunk);
+                writeChunk(chunk, write, status, results);
+            }
+        }
+        if (readError != null) {
+            LOG.debug("Cannot read employee at index {} of the bulk request. Reason: {}", results.size(), readError);
+            results.add(new BulkItemResult(results.size(), null, BulkItemResult.Status.FAILED,
+                    "Cannot read employee: " + readError));
+        }
+        return results;
+    }
+
+    // method to write one chunk with a single bulk write and add a result for each of its employees
+    private void writeChunk(List<Employee> chunk, Function<List<Employee>, Map<Integer, String>> write,
+                            BulkItemResult.Status status, List<BulkItemResult> results) {
+        int from = results.size();
+
+        // employees with invalid direct reports fail on their own without being sent to the database
+        Map<Integer, String> rejected = new HashMap<>();
+        List<Employee> valid = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            try {
+                validateDirectReports(chunk.get(i).getEmployeeId(), chunk.get(i).getDirectReports());
+                valid.add(chunk.get(i));
+            } catch (InvalidDirectReportsException e) {
+                rejected.put(i, e.getMessage());
+            }
+        }
+        valid.forEach(employee -> employeeIdFilter.add(employee.getEmployeeId()));
+        Map<Integer, String> errors = valid.isEmpty() ? Map.of() : write.apply(valid);
+
+        int written = 0;
+        for (int i = 0; i < chunk.size(); i++) {
+            Employee employee = chunk.get(i);
+            String error = rejected.containsKey(i) ? rejected.get(i) : errors.get(written++);
+            if (error == null) {
+                employeeCache.invalidate(employee.getEmployeeId());
+                orgGraphIndex().put(employee);
+                results.add(new BulkItemResult(from + i, employee.getEmployeeId(), status, null));
+            } else {
+                LOG.error("Failed to write employee with id: [{}]. Reason: {}", employee.getEmployeeId(), error);
+                results.add(new BulkItemResult(from + i, employee.getEmployeeId(), BulkItemResult.Status.FAILED,
+                        error));
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.HierarchyNode;
+import com.mindex.challenge.metrics.RequestMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Walks the reporting hierarchy below an employee breadth first. Each level is fetched in batches of ids with
+ * one query per batch, and nodes are handed out as soon as their batch has been read, so only the current level
+ * of ids is held in memory along with the set of ids already reached. An employee reached twice, through a
+ * reporting cycle or a duplicated direct report, is only listed the first time.
+ */
+class HierarchyIterator implements Iterator<HierarchyNode> {
+    private static final Logger LOG = LoggerFactory.getLogger(HierarchyIterator.class);
+    private static final Set<String> HIERARCHY_FIELDS = Set.of("firstName", "lastName", "position", "department",
+            "directReports");
+
+    private final EmployeeRepository employeeRepository;
+    private final int maxDepth;
+    private final int batchSize;
+    private final Deque<HierarchyNode> ready = new ArrayDeque<>();
+    private final Set<String> reached = new HashSet<>();
+    // each entry is an employee id followed by the id of the manager it was reached from
+    private List<String[]> level = new ArrayList<>();
+    private List<String[]> nextLevel = new ArrayList<>();
+    private int levelDepth;
+    private int levelPosition;
+
+    HierarchyIterator(EmployeeRepository employeeRepository, Employee root, int maxDepth, int batchSize) {
+        this.employeeRepository = employeeRepository;
+        this.maxDepth = maxDepth;
+        this.batchSize = batchSize;
+        reached.add(root.getEmployeeId());
+        visit(root, null);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (ready.isEmpty() && fetchNextBatch()) {
+            LOG.debug("Fetched the next batch of the hierarchy at depth {}", levelDepth);
+        }
+        return !ready.isEmpty();
+    }
+
+    @Override
+    public HierarchyNode next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return ready.poll();
+    }
+
+    // reads the next batch of the current level, moving down a level when it is exhausted
+    private boolean fetchNextBatch() {
+        if (levelPosition == level.size()) {
+            if (nextLevel.isEmpty()) {
+                return false;
+            }
+            level = nextLevel;
+            nextLevel = new ArrayList<>();
+            levelDepth++;
+            levelPosition = 0;
+        }
+
+        List<String[]> batch = level.subList(levelPosition, Math.min(levelPosition + batchSize, level.size()));
+        levelPosition += batch.size();
+
+        List<String> ids = new ArrayList<>(batch.size());
+        for (String[] entry : batch) {
+            ids.add(entry[0]);
+        }
+        Map<String, Employee> employees = new HashMap<>();
+        for (Employee employee : employeeRepository.findFieldsByEmployeeIdIn(ids, HIERARCHY_FIELDS)) {
+            employees.put(employee.getEmployeeId(), employee);
+        }
+
+        for (String[] entry : batch) {
+            Employee employee = employees.get(entry[0]);
+            if (employee == null) {
+                LOG.error("Cannot find employee with id: [{}] reporting to employee with id: [{}]", entry[0], entry[1]);
+                continue;
+            }
+            visit(employee, entry[1]);
+        }
+        return true;
+    }
+
+    private void visit(Employee employee, String managerId) {
+        RequestMetrics.recordNodesVisited(1);
+        ready.add(new HierarchyNode(employee, managerId, levelDepth));
+        if (levelDepth < maxDepth && employee.getDirectReports() != null) {
+            for (Employee report : employee.getDirectReports()) {
+                String reportId = report.getEmployeeId();
+                if (reportId != null && !reportId.isEmpty() && reached.add(reportId)) {
+                    nextLevel.add(new String[]{reportId, employee.getEmployeeId()});
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,577 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.CompensationRollup;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.metrics.RequestMetrics;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory index of the reporting hierarchy. Every employee id is mapped to a dense integer slot and each
+ * slot keeps its direct reports as a primitive array of slots, so report counts can be answered without
+ * going back to the database. Report counts are memoized per slot; changing an employee's direct reports
+ * only invalidates that employee and their managers up the chain.
+ *
+ * The index also keeps each employee's salary and department together with salary totals per subtree and per
+ * department. A salary or department change adjusts the totals of the managers up the chain and of the departments
+ * in place, so rollups are answered without walking the subtree. Only a change that removes the minimum or maximum
+ * salary of a set of employees, or a change of direct reports, drops that set's totals to be recomputed on next use.
+ */
+public class OrgGraphIndex {
+    private static final int[] NO_REPORTS = new int[0];
+    private static final int NOT_COUNTED = -1;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> slots = new HashMap<>();
+    // slots of employees we have seen a document for, as opposed to ids only referenced as a direct report
+    private final BitSet known = new BitSet();
+    private int[][] reports = new int[64][];
+    private int[][] managers = new int[64][];
+    private int[] reportCounts = new int[64];
+    private BigDecimal[] salaries = new BigDecimal[64];
+    private String[] departments = new String[64];
+    // salary totals of every subtree, null until computed or after being invalidated
+    private Totals[] subtreeTotals = new Totals[64];
+    // salary totals of every department, absent until computed or after being invalidated
+    private final Map<String, Totals> departmentTotals = new ConcurrentHashMap<>();
+    private int size;
+    private volatile boolean built;
+
+    public boolean isBuilt() {
+        return built;
+    }
+
+    // replaces the contents of the index with the given employees
+    public void build(Stream<Employee> employees) {
+        lock.writeLock().lock();
+        try {
+            slots.clear();
+            known.clear();
+            reports = new int[64][];
+            managers = new int[64][];
+            reportCounts = new int[64];
+            salaries = new BigDecimal[64];
+            departments = new String[64];
+            subtreeTotals = new Totals[64];
+            departmentTotals.clear();
+            size = 0;
+            // nothing is memoized yet, so there is nothing to invalidate while loading
+            employees.forEach(employee -> putLocked(employee, false));
+            precomputeTotals();
+            built = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // adds the employee to the index or replaces its direct reports
+    public void put(Employee employee) {
+        lock.writeLock().lock();
+        try {
+            putLocked(employee, true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // sets the salary of an employee already in the index, adjusting the totals that include them
+    public void putSalary(String employeeId, BigDecimal salary) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.get(employeeId);
+            if (slot != null && known.get(slot)) {
+                changeSalary(slot, salary, departments[slot]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // forgets every memoized report count, the next count for each employee walks its subtree again
+    public void clearReportCounts() {
+        lock.writeLock().lock();
+        try {
+            Arrays.fill(reportCounts, 0, size, NOT_COUNTED);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(String employeeId) {
+        lock.readLock().lock();
+        try {
+            Integer slot = slots.get(employeeId);
+            return slot != null && known.get(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the distinct employees reachable through direct reports from the given employee.
+     * @param employeeId
+     * @return the number of reports, or -1 when the employee is not in the index
+     */
+    public int countReports(String employeeId) {
+        lock.readLock().lock();
+        try {
+            Integer root = slots.get(employeeId);
+            if (root == null || !known.get(root)) {
+                return -1;
+            }
+            if (reportCounts[root] != NOT_COUNTED) {
+                return reportCounts[root];
+            }
+            BitSet visited = new BitSet(size);
+            visited.set(root);
+            int[] stack = new int[16];
+            int top = 0;
+            stack[top++] = root;
+            int count = 0;
+            while (top > 0) {
+                for (int report : reports[stack[--top]]) {
+                    if (!visited.get(report)) {
+                        visited.set(report);
+                        count++;
+                        if (top == stack.length) {
+                            stack = Arrays.copyOf(stack, top * 2);
+                        }
+                        stack[top++] = report;
+                    }
+                }
+            }
+            RequestMetrics.recordNodesVisited(count + 1);
+            // a concurrent reader may store the same value, invalidation only happens under the write lock
+            reportCounts[root] = count;
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rolls up the salaries of the employee and of the distinct employees reachable through their direct reports
+     * @param employeeId
+     * @return the rollup, or null when the employee is not in the index
+     */
+    public CompensationRollup subtreeRollup(String employeeId) {
+        lock.readLock().lock();
+        try {
+            Integer root = slots.get(employeeId);
+            if (root == null || !known.get(root)) {
+                return null;
+            }
+            Totals totals = subtreeTotals[root];
+            if (totals == null) {
+                totals = computeSubtreeTotals(root);
+                // immutable, so storing it under the read lock is as safe as the memoized report counts
+                subtreeTotals[root] = totals;
+            }
+            CompensationRollup rollup = totals.toRollup();
+            rollup.setEmployee(employeeId);
+            return rollup;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rolls up the salaries of the employees in a department
+     * @param department
+     * @return the rollup, with a headcount of 0 when nobody is in the department
+     */
+    public CompensationRollup departmentRollup(String department) {
+        lock.readLock().lock();
+        try {
+            Totals totals = departmentTotals.get(department);
+            if (totals == null) {
+                totals = computeDepartmentTotals(department);
+                // unknown departments are not kept, so looking them up cannot grow the map
+                if (totals.headcount > 0) {
+                    departmentTotals.putIfAbsent(department, totals);
+                }
+            }
+            CompensationRollup rollup = totals.toRollup();
+            rollup.setDepartment(department);
+            return rollup;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Checks whether giving the employee the given direct reports would close a reporting cycle, which is the case
+     * when one of them is the employee or already sits above the employee. Walks up the management chain, which is
+     * short, instead of down the subtrees of the reports.
+     * @param employeeId
+     * @param reportIds
+     */
+    public boolean closesCycle(String employeeId, Collection<String> reportIds) {
+        lock.readLock().lock();
+        try {
+            Integer start = slots.get(employeeId);
+            if (start == null) {
+                return reportIds.contains(employeeId);
+            }
+            BitSet candidates = new BitSet(size);
+            for (String reportId : reportIds) {
+                Integer slot = slots.get(reportId);
+                if (slot != null) {
+                    candidates.set(slot);
+                }
+            }
+            if (candidates.isEmpty()) {
+                return false;
+            }
+            BitSet visited = new BitSet(size);
+            visited.set(start);
+            int[] stack = new int[16];
+            int top = 0;
+            stack[top++] = start;
+            while (top > 0) {
+                int current = stack[--top];
+                if (candidates.get(current)) {
+                    return true;
+                }
+                for (int manager : managers[current]) {
+                    if (!visited.get(manager)) {
+                        visited.set(manager);
+                        if (top == stack.length) {
+                            stack = Arrays.copyOf(stack, top * 2);
+                        }
+                        stack[top++] = manager;
+                    }
+                }
+            }
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void putLocked(Employee employee, boolean invalidate) {
+        int slot = slotFor(employee.getEmployeeId());
+        BigDecimal salary = employee.getCompensation() == null ? null : employee.getCompensation().getSalary();
+        if (invalidate) {
+            changeSalary(slot, salary, employee.getDepartment());
+        } else {
+            // totals are computed once loading is done
+            salaries[slot] = salary;
+            departments[slot] = employee.getDepartment();
+        }
+        known.set(slot);
+        int[] previousReports = reports[slot];
+        int[] newReports = toSlots(employee.getDirectReports());
+        if (Arrays.equals(previousReports, newReports)) {
+            return;
+        }
+        for (int report : previousReports) {
+            managers[report] = remove(managers[report], slot);
+        }
+        for (int report : newReports) {
+            managers[report] = add(managers[report], slot);
+        }
+        reports[slot] = newReports;
+        if (invalidate) {
+            invalidate(slot);
+        }
+    }
+
+    // moves the salary and department of a slot, adjusting the totals of its managers and departments in place
+    private void changeSalary(int slot, BigDecimal salary, String department) {
+        BigDecimal previousSalary = salaries[slot];
+        String previousDepartment = departments[slot];
+        salaries[slot] = salary;
+        departments[slot] = department;
+
+        if (Objects.equals(previousDepartment, department)) {
+            if (department != null && !sameSalary(previousSalary, salary)) {
+                departmentTotals.computeIfPresent(department,
+                        (name, totals) -> totals.change(0, previousSalary, salary));
+            }
+        } else {
+            if (previousDepartment != null) {
+                departmentTotals.computeIfPresent(previousDepartment,
+                        (name, totals) -> totals.change(-1, previousSalary, null));
+            }
+            addToDepartment(department, salary);
+        }
+
+        if (sameSalary(previousSalary, salary)) {
+            return;
+        }
+        BitSet visited = new BitSet(size);
+        visited.set(slot);
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = slot;
+        while (top > 0) {
+            int current = stack[--top];
+            if (subtreeTotals[current] != null) {
+                subtreeTotals[current] = subtreeTotals[current].change(0, previousSalary, salary);
+            }
+            for (int manager : managers[current]) {
+                if (!visited.get(manager)) {
+                    visited.set(manager);
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, top * 2);
+                    }
+                    stack[top++] = manager;
+                }
+            }
+        }
+    }
+
+    private void addToDepartment(String department, BigDecimal salary) {
+        if (department != null) {
+            departmentTotals.computeIfPresent(department, (name, totals) -> totals.change(1, null, salary));
+        }
+    }
+
+    private static boolean sameSalary(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    // sums the subtree of the slot, counting every employee reachable through more than one path once
+    private Totals computeSubtreeTotals(int root) {
+        BitSet visited = new BitSet(size);
+        visited.set(root);
+        Totals totals = Totals.EMPTY.change(1, null, salaries[root]);
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            for (int report : reports[stack[--top]]) {
+                if (!visited.get(report)) {
+                    visited.set(report);
+                    totals = totals.change(1, null, salaries[report]);
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, top * 2);
+                    }
+                    stack[top++] = report;
+                }
+            }
+        }
+        RequestMetrics.recordNodesVisited(totals.headcount);
+        return totals;
+    }
+
+    private Totals computeDepartmentTotals(String department) {
+        Totals totals = Totals.EMPTY;
+        for (int slot = known.nextSetBit(0); slot >= 0; slot = known.nextSetBit(slot + 1)) {
+            if (department.equals(departments[slot])) {
+                totals = totals.change(1, null, salaries[slot]);
+            }
+        }
+        return totals;
+    }
+
+    // fills in the totals of every department and, bottom up from the employees without reports, of every subtree
+    // that is a tree. Subtrees that share employees or sit on a reporting cycle are left to be computed on first use
+    private void precomputeTotals() {
+        Map<String, Totals> byDepartment = new HashMap<>();
+        for (int slot = known.nextSetBit(0); slot >= 0; slot = known.nextSetBit(slot + 1)) {
+            if (departments[slot] != null) {
+                byDepartment.merge(departments[slot], Totals.EMPTY.change(1, null, salaries[slot]), Totals::plus);
+            }
+        }
+        departmentTotals.putAll(byDepartment);
+
+        for (int slot = 0; slot < size; slot++) {
+            if (managers[slot].length > 1) {
+                // summing the subtrees of the reports would count the shared employees twice
+                return;
+            }
+        }
+        int[] remainingReports = new int[size];
+        Deque<Integer> ready = new ArrayDeque<>();
+        for (int slot = 0; slot < size; slot++) {
+            remainingReports[slot] = reports[slot].length;
+            if (remainingReports[slot] == 0) {
+                ready.add(slot);
+            }
+        }
+        while (!ready.isEmpty()) {
+            int slot = ready.poll();
+            Totals totals = Totals.EMPTY.change(1, null, salaries[slot]);
+            for (int report : reports[slot]) {
+                totals = totals.plus(subtreeTotals[report]);
+            }
+            subtreeTotals[slot] = totals;
+            for (int manager : managers[slot]) {
+                if (--remainingReports[manager] == 0) {
+                    ready.add(manager);
+                }
+            }
+        }
+    }
+
+    // clears the memoized report count of the slot and of everyone it reports to, directly or indirectly
+    private void invalidate(int slot) {
+        BitSet visited = new BitSet(size);
+        visited.set(slot);
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = slot;
+        while (top > 0) {
+            int current = stack[--top];
+            reportCounts[current] = NOT_COUNTED;
+            subtreeTotals[current] = null;
+            for (int manager : managers[current]) {
+                if (!visited.get(manager)) {
+                    visited.set(manager);
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, top * 2);
+                    }
+                    stack[top++] = manager;
+                }
+            }
+        }
+    }
+
+    private static int[] add(int[] slots, int slot) {
+        for (int existing : slots) {
+            if (existing == slot) {
+                return slots;
+            }
+        }
+        int[] result = Arrays.copyOf(slots, slots.length + 1);
+        result[slots.length] = slot;
+        return result;
+    }
+
+    private static int[] remove(int[] slots, int slot) {
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] == slot) {
+                int[] result = Arrays.copyOf(slots, slots.length - 1);
+                System.arraycopy(slots, i + 1, result, i, slots.length - i - 1);
+                return result;
+            }
+        }
+        return slots;
+    }
+
+    private int[] toSlots(List<Employee> directReports) {
+        if (directReports == null || directReports.isEmpty()) {
+            return NO_REPORTS;
+        }
+        int[] result = new int[directReports.size()];
+        int count = 0;
+        for (Employee report : directReports) {
+            if (report.getEmployeeId() != null && !report.getEmployeeId().isEmpty()) {
+                result[count++] = slotFor(report.getEmployeeId());
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private int slotFor(String employeeId) {
+        Integer slot = slots.get(employeeId);
+        if (slot != null) {
+            return slot;
+        }
+        if (size == reports.length) {
+            reports = Arrays.copyOf(reports, size * 2);
+            managers = Arrays.copyOf(managers, size * 2);
+            reportCounts = Arrays.copyOf(reportCounts, size * 2);
+            salaries = Arrays.copyOf(salaries, size * 2);
+            departments = Arrays.copyOf(departments, size * 2);
+            subtreeTotals = Arrays.copyOf(subtreeTotals, size * 2);
+        }
+        reports[size] = NO_REPORTS;
+        managers[size] = NO_REPORTS;
+        reportCounts[size] = NOT_COUNTED;
+        slots.put(employeeId, size);
+        return size++;
+    }
+
+    /**
+     * Salary totals of a set of employees. Immutable, so readers can share them under the read lock.
+     */
+    private static final class Totals {
+        static final Totals EMPTY = new Totals(0, 0, BigDecimal.ZERO, null, null);
+
+        final int headcount;
+        final int salaried;
+        final BigDecimal sum;
+        final BigDecimal min;
+        final BigDecimal max;
+
+        Totals(int headcount, int salaried, BigDecimal sum, BigDecimal min, BigDecimal max) {
+            this.headcount = headcount;
+            this.salaried = salaried;
+            this.sum = sum;
+            this.min = min;
+            this.max = max;
+        }
+
+        /**
+         * Adjusts the totals for employees joining or leaving the set and for one salary being replaced by another
+         * @param headcountChange
+         * @param removed salary leaving the set, or null
+         * @param added salary joining the set, or null
+         * @return the new totals, or null when the removed salary was the minimum or maximum and the new one can only
+         *         be found by recomputing
+         */
+        Totals change(int headcountChange, BigDecimal removed, BigDecimal added) {
+            int newSalaried = salaried - (removed == null ? 0 : 1) + (added == null ? 0 : 1);
+            if (newSalaried == 0) {
+                return new Totals(headcount + headcountChange, 0, BigDecimal.ZERO, null, null);
+            }
+            BigDecimal newMin = min;
+            BigDecimal newMax = max;
+            if (removed != null && removed.compareTo(min) == 0 && (added == null || added.compareTo(removed) > 0)) {
+                return null;
+            }
+            if (removed != null && removed.compareTo(max) == 0 && (added == null || added.compareTo(removed) < 0)) {
+                return null;
+            }
+            if (added != null) {
+                newMin = newMin == null || added.compareTo(newMin) < 0 ? added : newMin;
+                newMax = newMax == null || added.compareTo(newMax) > 0 ? added : newMax;
+            }
+            BigDecimal newSum = sum;
+            if (removed != null) {
+                newSum = newSum.subtract(removed);
+            }
+            if (added != null) {
+                newSum = newSum.add(added);
+            }
+            return new Totals(headcount + headcountChange, newSalaried, newSum, newMin, newMax);
+        }
+
+        // totals of two sets of employees that do not overlap
+        Totals plus(Totals other) {
+            return new Totals(headcount + other.headcount, salaried + other.salaried, sum.add(other.sum),
+                    min == null || other.min != null && other.min.compareTo(min) < 0 ? other.min : min,
+                    max == null || other.max != null && other.max.compareTo(max) > 0 ? other.max : max);
+        }
+
+        CompensationRollup toRollup() {
+            CompensationRollup rollup = new CompensationRollup();
+            rollup.setHeadcount(headcount);
+            rollup.setSalaried(salaried);
+            rollup.setTotalSalary(sum);
+            rollup.setMinSalary(min);
+            rollup.setMaxSalary(max);
+            if (salaried > 0) {
+                rollup.setMeanSalary(sum.divide(BigDecimal.valueOf(salaried), 2, RoundingMode.HALF_EVEN));
+            }
+            return rollup;
+        }
+    }
+}
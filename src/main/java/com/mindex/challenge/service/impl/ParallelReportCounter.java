@@ -0,0 +1,115 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.metrics.RequestMetrics;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Counts the distinct reports the same way as the recursive traversal, but looks up sibling subtrees concurrently
+ * on virtual threads. A shared visited set stops reporting cycles and employees listed twice from being counted or
+ * looked up again. A semaphore shared by all traversals caps the number of lookups in flight so the database is not
+ * swamped by a single wide org.
+ */
+class ParallelReportCounter implements AutoCloseable {
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Function<String, Employee> lookup;
+    private final Semaphore lookups;
+
+    ParallelReportCounter(Function<String, Employee> lookup, int maxConcurrentLookups) {
+        this.lookup = lookup;
+        this.lookups = new Semaphore(maxConcurrentLookups);
+    }
+
+    int count(Employee employee) {
+        Traversal traversal = new Traversal(RequestMetrics.current());
+        traversal.visited.add(employee.getEmployeeId());
+        traversal.countReports(employee);
+        traversal.finish();
+        try {
+            return traversal.done.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private class Traversal {
+        private final RequestMetrics metrics;
+        private final AtomicInteger count = new AtomicInteger();
+        private final Set<String> visited = ConcurrentHashMap.newKeySet();
+        // outstanding lookups plus one for the root until all of its reports have been submitted
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private final CompletableFuture<Integer> done = new CompletableFuture<>();
+
+        Traversal(RequestMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        private void countReports(Employee employee) {
+            RequestMetrics.recordNodesVisited(1);
+            List<Employee> directReports = employee.getDirectReports();
+            if (directReports == null) {
+                return;
+            }
+            for (Employee report : directReports) {
+                String reportId = report.getEmployeeId();
+                if (reportId != null && !reportId.isEmpty() && visited.add(reportId)) {
+                    count.incrementAndGet();
+                    pending.incrementAndGet();
+                    executor.execute(() -> visit(reportId));
+                }
+            }
+        }
+
+        private void visit(String employeeId) {
+            RequestMetrics.bind(metrics);
+            try {
+                if (!done.isDone()) {
+                    countReports(lookUp(employeeId));
+                }
+            } catch (RuntimeException e) {
+                done.completeExceptionally(e);
+            } finally {
+                RequestMetrics.bind(null);
+                finish();
+            }
+        }
+
+        private Employee lookUp(String employeeId) {
+            try {
+                lookups.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while counting reports", e);
+            }
+            try {
+                return lookup.apply(employeeId);
+            } finally {
+                lookups.release();
+            }
+        }
+
+        private void finish() {
+            if (pending.decrementAndGet() == 0) {
+                done.complete(count.get());
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.mindex.challenge.service.impl;
+
+import com.mindex.challenge.data.Employee;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Employee writes that have been acknowledged but not yet written to the database. Writes to the same employee are
+ * coalesced into its latest state and version, and all pending employees are written with one bulk write when the
+ * oldest has waited for the maximum delay or when the maximum number of employees is pending, whichever comes first.
+ * Readers by id look here before the cache and the database so they always see the latest acknowledged state.
+ *
+ * Readers that query the database directly only see pending writes once they are flushed. Among the report
+ * traversals that is BATCHED, which fetches whole levels with one query, and the hierarchy stream. RECURSIVE and
+ * PARALLEL look every employee up by id and see them straight away, and INDEX is updated as each write is accepted.
+ *
+ * Pending writes are lost if the process dies before they are flushed, closing the buffer flushes them.
+ */
+class WriteBehindBuffer implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(WriteBehindBuffer.class);
+
+    private final Map<String, Employee> pending = new ConcurrentHashMap<>();
+    private final Function<List<Employee>, Map<Integer, String>> write;
+    private final Consumer<Employee> flushed;
+    private final int maxPending;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "employee-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    // bumped by every flush after it has written its batch and before it removes the batch from pending
+    private final AtomicLong flushes = new AtomicLong();
+    // flushes take their snapshot under the lock, so an older state of an employee is never written after a newer one
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * @param write bulk write of whole employees at their given versions, returning the errors by position
+     * @param flushed called for every employee once it has been written
+     * @param maxPending number of pending employees that triggers a flush straight away
+     * @param maxDelay longest time a write is held before it is flushed
+     */
+    WriteBehindBuffer(Function<List<Employee>, Map<Integer, String>> write, Consumer<Employee> flushed,
+                      int maxPending, Duration maxDelay) {
+        this.write = write;
+        this.flushed = flushed;
+        this.maxPending = maxPending;
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, maxDelay.toMillis(), maxDelay.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    // the pending state of the employee, or null when nothing is waiting to be written for it
+    Employee get(String employeeId) {
+        return pending.get(employeeId);
+    }
+
+    /**
+     * Applies a change to the latest state of an employee and holds the result until the next flush
+     * @param employeeId
+     * @param current loads the stored employee when nothing is pending for it, may return null
+     * @param change returns the new state of the employee as a new object, or throws to reject the write
+     * @return the pending state with its new version
+     */
+    Employee write(String employeeId, Supplier<Employee> current, UnaryOperator<Employee> change) {
+        Employee written = tryWrite(employeeId, current, change);
+        while (written == null) {
+            written = tryWrite(employeeId, current, change);
+        }
+        if (pending.size() >= maxPending && flushScheduled.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                flushScheduled.set(false);
+                flushQuietly();
+            });
+        }
+        return written;
+    }
+
+    // method to apply the change once. The stored employee is loaded before compute so the database read does not
+    // hold the lock of the map bin, returns null when a flush may have written the employee while it was loading
+    private Employee tryWrite(String employeeId, Supplier<Employee> current, UnaryOperator<Employee> change) {
+        long flushesBefore = flushes.get();
+        boolean loaded = !pending.containsKey(employeeId);
+        Employee stored = loaded ? current.get() : null;
+        return pending.compute(employeeId, (id, existing) -> {
+            if (existing == null && (!loaded || flushes.get() != flushesBefore)) {
+                return null;
+            }
+            Employee base = existing != null ? existing : stored;
+            Employee next = change.apply(base);
+            // the same numbering as the $inc of a direct write, an employee written before versioning counts as 0
+            next.setVersion(base == null || base.getVersion() == null ? 1L : base.getVersion() + 1);
+            return next;
+        });
+    }
+
+    // writes everything that is pending
+    void flush() {
+        flush(() -> new ArrayList<>(pending.values()));
+    }
+
+    // writes whatever is pending for the given employees, so a direct write to them can follow
+    void flush(Collection<String> employeeIds) {
+        flush(() -> {
+            List<Employee> batch = new ArrayList<>();
+            for (String employeeId : employeeIds) {
+                Employee employee = pending.get(employeeId);
+                if (employee != null) {
+                    batch.add(employee);
+                }
+            }
+            return batch;
+        });
+    }
+
+    private void flush(Supplier<List<Employee>> snapshot) {
+        flushLock.lock();
+        try {
+            List<Employee> batch = snapshot.get();
+            if (batch.isEmpty()) {
+                return;
+            }
+            LOG.debug("Flushing {} pending employee writes", batch.size());
+            Map<Integer, String> errors = write.apply(batch);
+            // a write that loaded its employee before this point may have read it from before the batch was written
+            flushes.incrementAndGet();
+            for (int i = 0; i < batch.size(); i++) {
+                Employee employee = batch.get(i);
+                if (errors.containsKey(i)) {
+                    LOG.error("Failed to flush employee with id: [{}], keeping it pending. Reason: {}",
+                            employee.getEmployeeId(), errors.get(i));
+                    continue;
+                }
+                flushed.accept(employee);
+                // a newer write that arrived during the flush stays pending for the next one
+                pending.remove(employee.getEmployeeId(), employee);
+            }
+            if (!errors.isEmpty()) {
+                throw new IllegalStateException("Failed to flush " + errors.size() + " pending employee writes");
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            LOG.error("Failed to flush pending employee writes, retrying after the next delay", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+}
@@ -1,15 +1,30 @@
 package com.mindex.challenge;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mindex.challenge.dao.EmployeeRepository;
 import com.mindex.challenge.data.Employee;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.builder.SpringApplicationBuilder;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.UUID;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest
@@ -18,6 +33,12 @@ public class DataBootstrapTest {
     @Autowired
     private EmployeeRepository employeeRepository;
 
+    @Autowired
+    private EmployeeSnapshotWriter employeeSnapshotWriter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @Test
     public void test() {
         Employee employee = employeeRepository.findByEmployeeId("16a596ae-edd3-4847-99fe-c4518e82c86f");
@@ -27,4 +48,89 @@ public class DataBootstrapTest {
         assertEquals("Development Manager", employee.getPosition());
         assertEquals("Engineering", employee.getDepartment());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testWriteSnapshot() throws IOException {
+        Path snapshot = Files.createTempDirectory("snapshot").resolve("employees.smile");
+        long written = employeeSnapshotWriter.write(snapshot);
+        assertEquals(employeeRepository.count(), written);
+
+        Employee[] employees;
+        try (JsonParser parser = DataBootstrap.SNAPSHOT_FACTORY.createParser(snapshot.toFile())) {
+            employees = objectMapper.readValue(parser, Employee[].class);
+        }
+        Employee john = null;
+        for (Employee employee : employees) {
+            if ("16a596ae-edd3-4847-99fe-c4518e82c86f".equals(employee.getEmployeeId())) {
+                john = employee;
+            }
+        }
+        assertEquals(written, employees.length);
+        assertNotNull(john);
+        assertEquals("Lennon", john.getLastName());
+        assertEquals(2, john.getDirectReports().size());
+    }
+
+    @Test
+    public void testWriteSnapshotRefusesMemoryBackend() throws IOException {
+        // a fresh process on the memory backend only holds the seed, so its snapshot would be the seed re-encoded
+        Path snapshot = Files.createTempDirectory("snapshot").resolve("employees.smile");
+        try {
+            employeeSnapshotWriter.run(new DefaultApplicationArguments("--snapshot.write=" + snapshot));
+            fail("Expected the snapshot writer to refuse the memory backend");
+        } catch (IllegalStateException e) {
+            assertFalse(Files.exists(snapshot));
+        }
+    }
+
+    @Test
+    public void testBootFromSnapshot() throws IOException {
+        String employeeId = insertEmployeeMissingFromSeed();
+        Path snapshot = writeSnapshot();
+
+        try (ConfigurableApplicationContext context = start(snapshot)) {
+            EmployeeRepository snapshotRepository = context.getBean(EmployeeRepository.class);
+            assertEquals(employeeRepository.count(), snapshotRepository.count());
+            Employee employee = snapshotRepository.findByEmployeeId(employeeId);
+            assertNotNull(employee);
+            assertEquals("Starr", employee.getLastName());
+        }
+    }
+
+    @Test
+    public void testStaleSnapshotIsIgnored() throws IOException {
+        String employeeId = insertEmployeeMissingFromSeed();
+        Path snapshot = writeSnapshot();
+        // written long before the seed last changed
+        Files.setLastModifiedTime(snapshot, FileTime.fromMillis(0));
+
+        try (ConfigurableApplicationContext context = start(snapshot)) {
+            EmployeeRepository seededRepository = context.getBean(EmployeeRepository.class);
+            assertNull(seededRepository.findByEmployeeId(employeeId));
+            assertNotNull(seededRepository.findByEmployeeId("16a596ae-edd3-4847-99fe-c4518e82c86f"));
+        }
+    }
+
+    private String insertEmployeeMissingFromSeed() {
+        Employee employee = new Employee();
+        employee.setEmployeeId(UUID.randomUUID().toString());
+        employee.setFirstName("Ringo");
+        employee.setLastName("Starr");
+        employee.setPosition("Developer III");
+        employee.setDepartment("Engineering");
+        employeeRepository.insert(employee);
+        return employee.getEmployeeId();
+    }
+
+    private Path writeSnapshot() throws IOException {
+        Path snapshot = Files.createTempDirectory("snapshot").resolve("employees.smile");
+        employeeSnapshotWriter.write(snapshot);
+        return snapshot;
+    }
+
+    private static ConfigurableApplicationContext start(Path snapshot) {
+        return new SpringApplicationBuilder(ChallengeApplication.class).run(
+                "--server.port=0",
+                "--bootstrap.snapshot=" + snapshot);
+    }
+}
@@ -0,0 +1,59 @@
+package com.mindex.challenge.config;
+
+import com.mindex.challenge.ChallengeApplication;
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.service.EmployeeService;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.system.OutputCaptureRule;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class H2StorageTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Rule
+    public OutputCaptureRule output = new OutputCaptureRule();
+
+    @Test
+    public void testRestartReopensTheStore() {
+        String employeeId;
+        long stored;
+        try (ConfigurableApplicationContext context = start()) {
+            Employee employee = new Employee();
+            employee.setFirstName("Paul");
+            employee.setLastName("McCartney");
+            employee.setPosition("Developer I");
+            employee.setDepartment("Engineering");
+            employeeId = context.getBean(EmployeeService.class).createEmployee(employee).getEmployeeId();
+            stored = context.getBean(EmployeeRepository.class).count();
+        }
+        assertFalse(output.toString().contains("Skipping the seed load"));
+
+        try (ConfigurableApplicationContext context = start()) {
+            assertTrue(output.toString().contains("Skipping the seed load, the employee store already holds " + stored + " employees"));
+            EmployeeRepository employeeRepository = context.getBean(EmployeeRepository.class);
+            assertEquals(stored, employeeRepository.count());
+            Employee employee = employeeRepository.findByEmployeeId(employeeId);
+            assertNotNull(employee);
+            assertEquals("McCartney", employee.getLastName());
+        }
+    }
+
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(ChallengeApplication.class).run(
+                "--server.port=0",
+                "--mongo.storage.backend=h2",
+                "--mongo.storage.path=" + folder.getRoot().toPath().resolve("employees.mv"),
+                "--bootstrap.snapshot=" + folder.getRoot().toPath().resolve("employees.smile"));
+    }
+}
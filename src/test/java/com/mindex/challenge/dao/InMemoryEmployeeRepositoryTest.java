@@ -0,0 +1,82 @@
+package com.mindex.challenge.dao;
+
+import com.mindex.challenge.data.Employee;
+import de.bwaldvogel.mongo.MongoServer;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("inprocess")
+public class InMemoryEmployeeRepositoryTest {
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Test
+    public void testInprocessProfileSelectsInMemoryRepository() {
+        assertEquals(InMemoryEmployeeRepository.class, AopUtils.getTargetClass(employeeRepository));
+        // nothing of the Mongo backed storage is started alongside it
+        assertTrue(applicationContext.getBeansOfType(MongoServer.class).isEmpty());
+        assertTrue(applicationContext.getBeansOfType(MongoTemplate.class).isEmpty());
+        assertTrue(applicationContext.getBeansOfType(EmployeeIndexes.class).isEmpty());
+
+        // the seed data is loaded through the selected repository
+        Employee employee = employeeRepository.findByEmployeeId("16a596ae-edd3-4847-99fe-c4518e82c86f");
+        assertNotNull(employee);
+        assertEquals("Lennon", employee.getLastName());
+    }
+
+    @Test
+    public void testSaveFindAndDelete() {
+        Employee employee = new Employee();
+        employee.setEmployeeId(UUID.randomUUID().toString());
+        employee.setFirstName("George");
+        employee.setLastName("Harrison");
+        employee.setPosition("Developer II");
+        employee.setDepartment("Engineering");
+        Employee saved = employeeRepository.save(employee);
+        assertEquals(Long.valueOf(0), saved.getVersion());
+
+        Employee found = employeeRepository.findById(employee.getEmployeeId()).orElseThrow();
+        assertEquals("Harrison", found.getLastName());
+        // callers get copies, changing one does not change the stored employee
+        found.setLastName("Starr");
+        assertEquals("Harrison", employeeRepository.findById(employee.getEmployeeId()).orElseThrow().getLastName());
+        assertTrue(employeeRepository.findAll().stream().anyMatch(e -> employee.getEmployeeId().equals(e.getEmployeeId())));
+
+        found.setPosition("Developer III");
+        assertEquals(Long.valueOf(1), employeeRepository.save(found).getVersion());
+        found.setVersion(0L);
+        try {
+            employeeRepository.save(found);
+            fail("Expected a save at a stale version to be rejected");
+        } catch (OptimisticLockingFailureException e) {
+            assertEquals("Developer III", employeeRepository.findById(employee.getEmployeeId()).orElseThrow().getPosition());
+        }
+
+        long count = employeeRepository.count();
+        employeeRepository.delete(employee);
+        assertFalse(employeeRepository.findById(employee.getEmployeeId()).isPresent());
+        assertEquals(count - 1, employeeRepository.count());
+    }
+}
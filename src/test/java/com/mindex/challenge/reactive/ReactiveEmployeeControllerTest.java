@@ -0,0 +1,137 @@
+package com.mindex.challenge.reactive;
+
+import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.ReportingStructure;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.main.web-application-type=reactive")
+@ActiveProfiles("reactive")
+public class ReactiveEmployeeControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    public void testCreateReadUpdate() {
+        Employee testEmployee = new Employee();
+        testEmployee.setFirstName("John");
+        testEmployee.setLastName("Doe");
+        testEmployee.setDepartment("Engineering");
+        testEmployee.setPosition("Developer");
+
+        Employee createdEmployee = webTestClient.post().uri("/employee").bodyValue(testEmployee)
+                .exchange().expectStatus().isOk()
+                .expectBody(Employee.class).returnResult().getResponseBody();
+        assertNotNull(createdEmployee);
+        assertNotNull(createdEmployee.getEmployeeId());
+
+        Employee readEmployee = webTestClient.get().uri("/employee/{id}", createdEmployee.getEmployeeId())
+                .exchange().expectStatus().isOk()
+                .expectBody(Employee.class).returnResult().getResponseBody();
+        assertNotNull(readEmployee);
+        assertEquals("Doe", readEmployee.getLastName());
+
+        readEmployee.setPosition("Development Manager");
+        Employee updatedEmployee = webTestClient.put().uri("/employee/{id}", readEmployee.getEmployeeId())
+                .bodyValue(readEmployee)
+                .exchange().expectStatus().isOk()
+                .expectBody(Employee.class).returnResult().getResponseBody();
+        assertNotNull(updatedEmployee);
+        assertEquals("Development Manager", updatedEmployee.getPosition());
+
+        // a stale version in the body does not conflict, the update replaces whatever version is stored
+        readEmployee.setPosition("Director");
+        Employee replacedEmployee = webTestClient.put().uri("/employee/{id}", readEmployee.getEmployeeId())
+                .bodyValue(readEmployee)
+                .exchange().expectStatus().isOk()
+                .expectBody(Employee.class).returnResult().getResponseBody();
+        assertNotNull(replacedEmployee);
+        assertEquals("Director", replacedEmployee.getPosition());
+        assertEquals(updatedEmployee.getVersion() + 1, (long) replacedEmployee.getVersion());
+
+        webTestClient.put().uri("/employee/{id}", "no-such-employee").bodyValue(readEmployee)
+                .exchange().expectStatus().isNotFound();
+        webTestClient.get().uri("/employee/{id}", "no-such-employee")
+                .exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    public void testUpdateRejectsInvalidDirectReports() {
+        // John Lennon manages Ringo Starr, who manages Pete Best
+        Employee ringo = webTestClient.get().uri("/employee/{id}", "03aa1462-ffa9-4978-901b-7c001562cf6f")
+                .exchange().expectStatus().isOk()
+                .expectBody(Employee.class).returnResult().getResponseBody();
+        assertNotNull(ringo);
+
+        Employee self = new Employee();
+        self.setEmployeeId(ringo.getEmployeeId());
+        ringo.setDirectReports(List.of(self));
+        webTestClient.put().uri("/employee/{id}", ringo.getEmployeeId()).bodyValue(ringo)
+                .exchange().expectStatus().isBadRequest();
+
+        Employee pete = webTestClient.get().uri("/employee/{id}", "62c1084e-6e34-4630-93fd-9153afb65309")
+                .exchange().expectStatus().isOk()
+                .expectBody(Employee.class).returnResult().getResponseBody();
+        assertNotNull(pete);
+        Employee lennon = new Employee();
+        lennon.setEmployeeId("16a596ae-edd3-4847-99fe-c4518e82c86f");
+        pete.setDirectReports(List.of(lennon));
+        webTestClient.put().uri("/employee/{id}", pete.getEmployeeId()).bodyValue(pete)
+                .exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void testReadUnknownEmployee() {
+        webTestClient.get().uri("/employee/{id}", "no-such-employee")
+                .exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    public void testReadBootstrapReportingStructure() {
+        ReportingStructure reportingStructure = webTestClient.get()
+                .uri("/employee/numberOfReports/{id}", "16a596ae-edd3-4847-99fe-c4518e82c86f")
+                .exchange().expectStatus().isOk()
+                .expectBody(ReportingStructure.class).returnResult().getResponseBody();
+        assertNotNull(reportingStructure);
+        assertEquals(4, reportingStructure.getNumberOfReports());
+
+        webTestClient.get().uri("/employee/numberOfReports/{id}", "no-such-employee")
+                .exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    public void testCreateReadCompensation() {
+        String id = "b7839309-3348-463b-a7e3-5de1c168beb3";
+        Compensation compensation = new Compensation();
+        compensation.setSalary(new BigDecimal("50000"));
+        compensation.setEffectiveDate("01-01-2024");
+
+        webTestClient.post().uri("/employee/compensation/{id}", id).bodyValue(compensation)
+                .exchange().expectStatus().isOk();
+
+        Compensation readCompensation = webTestClient.get().uri("/employee/compensation/{id}", id)
+                .exchange().expectStatus().isOk()
+                .expectBody(Compensation.class).returnResult().getResponseBody();
+        assertNotNull(readCompensation);
+        assertEquals(compensation.getSalary(), readCompensation.getSalary());
+        assertEquals(compensation.getEffectiveDate(), readCompensation.getEffectiveDate());
+
+        webTestClient.post().uri("/employee/compensation/{id}", "no-such-employee").bodyValue(compensation)
+                .exchange().expectStatus().isNotFound();
+    }
+}
@@ -1,30 +1,57 @@
 package com.mindex.challenge.service.impl;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mindex.challenge.dao.EmployeeCache;
+import com.mindex.challenge.dao.EmployeeIdFilter;
+import com.mindex.challenge.dao.EmployeeRepository;
+import com.mindex.challenge.data.BulkItemResult;
 import com.mindex.challenge.data.Compensation;
+import com.mindex.challenge.data.CompensationRollup;
 import com.mindex.challenge.data.Employee;
+import com.mindex.challenge.data.EmployeePage;
+import com.mindex.challenge.data.HierarchyNode;
+import com.mindex.challenge.data.MultiGetResult;
 import com.mindex.challenge.data.ReportingStructure;
+import com.mindex.challenge.exception.EmployeeNotFoundException;
+import com.mindex.challenge.exception.InvalidDirectReportsException;
 import com.mindex.challenge.service.EmployeeService;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability
 public class EmployeeServiceImplTest {
 
     private String employeeUrl;
@@ -32,6 +59,8 @@ public class EmployeeServiceImplTest {
     private String employeeNumberOfReportsUrl;
     private String employeeCompensationUrl;
     private String employeeCompensationIdUrl;
+    private String employeeBulkUrl;
+    private String employeeHierarchyUrl;
 
     @Autowired
     private EmployeeService employeeService;
@@ -42,6 +71,18 @@ public class EmployeeServiceImplTest {
     @Autowired
     private TestRestTemplate restTemplate;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private EmployeeCache employeeCache;
+
+    @Autowired
+    private EmployeeIdFilter employeeIdFilter;
+
     @Before
     public void setup() {
         employeeUrl = "http://localhost:" + port + "/employee";
@@ -49,6 +90,8 @@ public class EmployeeServiceImplTest {
         employeeNumberOfReportsUrl = "http://localhost:" + port + "/employee/numberOfReports/{id}";
         employeeCompensationUrl = "http://localhost:" + port + "/employee/compensation/{id}";
         employeeCompensationIdUrl = "http://localhost:" + port + "/employee/compensation/{id}";
+        employeeBulkUrl = "http://localhost:" + port + "/employee/_bulk";
+        employeeHierarchyUrl = "http://localhost:" + port + "/employee/{id}/hierarchy";
     }
 
     @Test
@@ -68,6 +111,23 @@ public class EmployeeServiceImplTest {
         assertEmployeeCompensationEquivalence(createtestCompensation(), createdCompensation);
     }
 
+    @Test
+    public void testCreateCompensationForUnknownEmployee() {
+        HttpStatus status = HttpStatus.valueOf(restTemplate.postForEntity(employeeCompensationUrl, createtestCompensation(), String.class, "unknown-employee").getStatusCode().value());
+        assertEquals(HttpStatus.NOT_FOUND, status);
+    }
+
+    @Test
+    public void testPatchEmployee() {
+        Employee createdEmployee = employeeService.createEmployee(createTestEmployee());
+        Employee patchedEmployee = employeeService.patchEmployee(createdEmployee.getEmployeeId(), Map.of("position", "Development Manager"));
+
+        assertEquals("Development Manager", patchedEmployee.getPosition());
+        assertEquals(createdEmployee.getFirstName(), patchedEmployee.getFirstName());
+        assertEmployeeCompensationEquivalence(createdEmployee.getCompensation(), patchedEmployee.getCompensation());
+        assertEquals("Development Manager", employeeService.getEmployee(createdEmployee.getEmployeeId()).getPosition());
+    }
+
     @Test
     public void testReadEmployee() {
         Employee testEmployee = createTestEmployee();
@@ -79,6 +139,68 @@ public class EmployeeServiceImplTest {
 
     }
 
+    @Test
+    public void testUnknownEmployeeSkipsDatabase() {
+        assertTrue(employeeIdFilter.isReady());
+        String unknownId = UUID.randomUUID().toString();
+        long misses = employeeCache.missCount();
+
+        assertTrue(employeeService.findEmployee(unknownId).isEmpty());
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity(employeeIdUrl, String.class, unknownId).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity(employeeCompensationIdUrl, String.class, unknownId).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity(employeeIdUrl + "?fields=firstName", String.class, unknownId).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity(employeeNumberOfReportsUrl, String.class, unknownId).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.postForEntity(employeeCompensationUrl, createtestCompensation(), String.class, unknownId).getStatusCode());
+        assertTrue(employeeService.findEmployeeCompensation(unknownId).isEmpty());
+        try {
+            employeeService.patchEmployee(unknownId, Map.of("position", "Developer"));
+            fail("Expected employee " + unknownId + " to be unknown");
+        } catch (EmployeeNotFoundException e) {
+            assertEquals(unknownId, e.getEmployeeId());
+        }
+        // the id filter ruled the id out, so the cache never had to load it
+        assertEquals(misses, employeeCache.missCount());
+
+        Employee uncompensatedEmployee = createTestEmployee();
+        uncompensatedEmployee.setCompensation(null);
+        uncompensatedEmployee = employeeService.createEmployee(uncompensatedEmployee);
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity(employeeCompensationIdUrl, String.class, uncompensatedEmployee.getEmployeeId()).getStatusCode());
+
+        Employee createdEmployee = employeeService.createEmployee(createTestEmployee());
+        assertTrue(employeeService.findEmployee(createdEmployee.getEmployeeId()).isPresent());
+        assertTrue(employeeService.findEmployee("16a596ae-edd3-4847-99fe-c4518e82c86f").isPresent());
+    }
+
+    @Test
+    public void testReadEmployeeFields() {
+        Employee createdEmployee = restTemplate.postForEntity(employeeUrl, createTestEmployee(), Employee.class).getBody();
+        Employee readEmployee = restTemplate.getForEntity(employeeIdUrl + "?fields=firstName,department", Employee.class, createdEmployee.getEmployeeId()).getBody();
+        assert readEmployee != null;
+        assertEquals(createdEmployee.getEmployeeId(), readEmployee.getEmployeeId());
+        assertEquals(createdEmployee.getFirstName(), readEmployee.getFirstName());
+        assertEquals(createdEmployee.getDepartment(), readEmployee.getDepartment());
+        assertNull(readEmployee.getLastName());
+        assertNull(readEmployee.getCompensation());
+
+        Employee[] readEmployees = restTemplate.getForEntity(employeeUrl + "?ids={ids}&fields=lastName", Employee[].class,
+                createdEmployee.getEmployeeId() + ",unknown-employee").getBody();
+        assert readEmployees != null;
+        assertEquals(1, readEmployees.length);
+        assertEquals(createdEmployee.getLastName(), readEmployees[0].getLastName());
+        assertNull(readEmployees[0].getFirstName());
+
+        // fields left out of a projection are not written, while full reads still write unset fields as null
+        String projectedBody = restTemplate.getForEntity(employeeIdUrl + "?fields=firstName", String.class, createdEmployee.getEmployeeId()).getBody();
+        assert projectedBody != null;
+        assertFalse(projectedBody.contains("lastName"));
+        Employee positionlessEmployee = createTestEmployee();
+        positionlessEmployee.setPosition(null);
+        positionlessEmployee = employeeService.createEmployee(positionlessEmployee);
+        String fullBody = restTemplate.getForEntity(employeeIdUrl, String.class, positionlessEmployee.getEmployeeId()).getBody();
+        assert fullBody != null;
+        assertTrue(fullBody.contains("\"position\":null"));
+    }
+
     /* This method 2 employees, creates the "reports to" relation in the database,
     then calls employee/numberOfReports/{id} to count the number of reports. A more elegant solution would be to
     create a test database, and/or to use mocking for all of these tests, but this is a proof of concept to test the functionality via JUnit
@@ -107,6 +229,280 @@ public class EmployeeServiceImplTest {
 
     }
 
+    @Test
+    public void testReadBootstrapReportingStructure() {
+        ReportingStructure readEmployeeStructure = restTemplate.getForEntity(employeeNumberOfReportsUrl, ReportingStructure.class, "16a596ae-edd3-4847-99fe-c4518e82c86f").getBody();
+        assert readEmployeeStructure != null;
+        assertEquals(4, readEmployeeStructure.getNumberOfReports());
+    }
+
+    @Test
+    public void testReportCountsFollowUpdatesBelowManager() {
+        Employee manager = employeeService.createEmployee(createTestEmployee());
+        Employee lead = employeeService.createEmployee(createTestEmployee());
+        Employee developer = employeeService.createEmployee(createTestEmployee());
+
+        manager.setDirectReports(List.of(lead));
+        employeeService.updateEmployee(manager);
+        assertEquals(1, employeeService.getEmployeeReports(manager.getEmployeeId()).getNumberOfReports());
+
+        lead.setDirectReports(List.of(developer));
+        employeeService.updateEmployee(lead);
+        assertEquals(2, employeeService.getEmployeeReports(manager.getEmployeeId()).getNumberOfReports());
+        assertEquals(1, employeeService.getEmployeeReports(lead.getEmployeeId()).getNumberOfReports());
+
+        lead.setDirectReports(null);
+        employeeService.updateEmployee(lead);
+        assertEquals(1, employeeService.getEmployeeReports(manager.getEmployeeId()).getNumberOfReports());
+    }
+
+    @Test
+    public void testCompensationRollups() {
+        String department = "Finance " + UUID.randomUUID();
+        Employee manager = createTestEmployee();
+        manager.setDepartment(department);
+        manager = employeeService.createEmployee(manager);
+        Employee lead = employeeService.createEmployee(createTestEmployee());
+        Employee developer = employeeService.createEmployee(createTestEmployee());
+        lead.setDirectReports(List.of(developer));
+        employeeService.updateEmployee(lead);
+        manager.setDirectReports(List.of(lead));
+        employeeService.updateEmployee(manager);
+
+        CompensationRollup rollup = restTemplate.getForEntity(employeeUrl + "/{id}/compensationRollup", CompensationRollup.class, manager.getEmployeeId()).getBody();
+        assertEquals(3, rollup.getHeadcount());
+        assertEquals(3, rollup.getSalaried());
+        assertEquals(0, new BigDecimal("150000").compareTo(rollup.getTotalSalary()));
+        assertEquals(0, new BigDecimal("50000").compareTo(rollup.getMeanSalary()));
+
+        // raising and then cutting the top salary below the manager adjusts every manager up the chain
+        Compensation raise = createtestCompensation();
+        raise.setSalary(new BigDecimal("80000.50"));
+        employeeService.createEmployeeCompensation(developer.getEmployeeId(), raise);
+        rollup = employeeService.getCompensationRollup(manager.getEmployeeId());
+        assertEquals(0, new BigDecimal("180000.50").compareTo(rollup.getTotalSalary()));
+        assertEquals(0, new BigDecimal("80000.50").compareTo(rollup.getMaxSalary()));
+        assertEquals(0, new BigDecimal("60000.17").compareTo(rollup.getMeanSalary()));
+
+        developer.setCompensation(null);
+        employeeService.updateEmployee(developer);
+        rollup = employeeService.getCompensationRollup(lead.getEmployeeId());
+        assertEquals(2, rollup.getHeadcount());
+        assertEquals(1, rollup.getSalaried());
+        assertEquals(0, new BigDecimal("50000").compareTo(rollup.getMaxSalary()));
+        assertEquals(0, new BigDecimal("100000").compareTo(employeeService.getCompensationRollup(manager.getEmployeeId()).getTotalSalary()));
+
+        CompensationRollup departmentRollup = restTemplate.getForEntity("http://localhost:" + port + "/department/{department}/compensationRollup", CompensationRollup.class, department).getBody();
+        assertEquals(1, departmentRollup.getHeadcount());
+        assertEquals(0, new BigDecimal("50000").compareTo(departmentRollup.getTotalSalary()));
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity(employeeUrl + "/{id}/compensationRollup", String.class, "unknown-employee").getStatusCode());
+    }
+
+    @Test
+    public void testMultiGetEmployees() {
+        Employee developer = employeeService.createEmployee(createTestEmployee());
+        Employee developerReference = new Employee();
+        developerReference.setEmployeeId(developer.getEmployeeId());
+        Employee manager = createTestEmployee();
+        manager.setDirectReports(List.of(developerReference));
+        manager = employeeService.createEmployee(manager);
+        // one of them cached, so the result mixes cache hits with the query
+        employeeService.getEmployee(developer.getEmployeeId());
+
+        String mgetUrl = employeeUrl + "/_mget";
+        MultiGetResult result = restTemplate.postForEntity(mgetUrl,
+                List.of(manager.getEmployeeId(), "unknown-employee", developer.getEmployeeId(), manager.getEmployeeId()),
+                MultiGetResult.class).getBody();
+        assertEquals(List.of(manager.getEmployeeId(), developer.getEmployeeId()), new ArrayList<>(result.getEmployees().keySet()));
+        assertEquals(List.of("unknown-employee"), result.getMissing());
+        assertNull(result.getEmployees().get(manager.getEmployeeId()).getDirectReports().get(0).getFirstName());
+
+        result = restTemplate.postForEntity(mgetUrl + "?expandReports=true", List.of(manager.getEmployeeId()), MultiGetResult.class).getBody();
+        Employee expandedReport = result.getEmployees().get(manager.getEmployeeId()).getDirectReports().get(0);
+        assertEmployeeEquivalence(developer, expandedReport);
+        // expanding works on a copy and leaves the cached manager alone
+        assertNull(employeeService.getEmployee(manager.getEmployeeId()).getDirectReports().get(0).getFirstName());
+
+        List<String> tooMany = new ArrayList<>();
+        for (int i = 0; i <= 1000; i++) {
+            tooMany.add("employee-" + i);
+        }
+        assertEquals(HttpStatus.BAD_REQUEST, restTemplate.postForEntity(mgetUrl, tooMany, String.class).getStatusCode());
+    }
+
+    @Test
+    public void testReadHierarchy() throws Exception {
+        String body = restTemplate.getForEntity(employeeHierarchyUrl, String.class, "16a596ae-edd3-4847-99fe-c4518e82c86f").getBody();
+        assert body != null;
+        String[] lines = body.split("\n");
+        assertEquals(5, lines.length);
+
+        HierarchyNode root = objectMapper.readValue(lines[0], HierarchyNode.class);
+        assertEquals("16a596ae-edd3-4847-99fe-c4518e82c86f", root.getEmployeeId());
+        assertEquals(0, root.getDepth());
+        assertNull(root.getManagerId());
+
+        HierarchyNode deepest = objectMapper.readValue(lines[4], HierarchyNode.class);
+        assertEquals(2, deepest.getDepth());
+        assertEquals("03aa1462-ffa9-4978-901b-7c001562cf6f", deepest.getManagerId());
+
+        String limitedBody = restTemplate.getForEntity(employeeHierarchyUrl + "?maxDepth=1", String.class, "16a596ae-edd3-4847-99fe-c4518e82c86f").getBody();
+        assert limitedBody != null;
+        assertEquals(3, limitedBody.split("\n").length);
+    }
+
+    @Test
+    public void testListAndExportEmployees() {
+        int listed = 0;
+        String after = null;
+        do {
+            EmployeePage page = after == null
+                    ? restTemplate.getForEntity(employeeUrl + "?limit=2", EmployeePage.class).getBody()
+                    : restTemplate.getForEntity(employeeUrl + "?limit=2&after={after}", EmployeePage.class, after).getBody();
+            assert page != null;
+            assertTrue(page.getEmployees().size() <= 2);
+            for (Employee employee : page.getEmployees()) {
+                assertTrue(after == null || employee.getEmployeeId().compareTo(after) > 0);
+                after = employee.getEmployeeId();
+                listed++;
+            }
+            after = page.getNext();
+        } while (after != null);
+        assertTrue(listed >= 5);
+
+        String export = restTemplate.getForEntity(employeeUrl + "/_export", String.class).getBody();
+        assert export != null;
+        assertTrue(export.split("\n").length >= 5);
+    }
+
+    @Test
+    public void testFindEmployees() {
+        JsonNode byDepartmentAndPosition = restTemplate.getForEntity(employeeUrl + "?department=Engineering&position=Developer V", JsonNode.class).getBody();
+        assert byDepartmentAndPosition != null;
+        assertEquals(1, byDepartmentAndPosition.get("content").size());
+        assertEquals("Ringo", byDepartmentAndPosition.get("content").get(0).get("firstName").asText());
+
+        JsonNode byNamePrefix = restTemplate.getForEntity(employeeUrl + "?namePrefix=Lenn&size=10", JsonNode.class).getBody();
+        assert byNamePrefix != null;
+        assertTrue(byNamePrefix.get("content").size() >= 1);
+        for (JsonNode employee : byNamePrefix.get("content")) {
+            assertTrue(employee.get("lastName").asText().startsWith("Lenn"));
+        }
+
+        // pages are in id order, so walking them one employee at a time lists every employee once
+        List<String> pagedIds = new ArrayList<>();
+        for (int page = 0; ; page++) {
+            JsonNode byDepartment = restTemplate.getForEntity(employeeUrl + "?department=Engineering&size=1&page=" + page, JsonNode.class).getBody();
+            assert byDepartment != null;
+            if (byDepartment.get("content").isEmpty()) {
+                break;
+            }
+            pagedIds.add(byDepartment.get("content").get(0).get("employeeId").asText());
+        }
+        assertTrue(pagedIds.size() >= 4);
+        assertEquals(pagedIds.stream().distinct().sorted().toList(), pagedIds);
+    }
+
+    @Test
+    public void testRequestMetricsArePublished() {
+        restTemplate.getForEntity(employeeNumberOfReportsUrl, ReportingStructure.class, "16a596ae-edd3-4847-99fe-c4518e82c86f");
+
+        String metrics = restTemplate.getForEntity("http://localhost:" + port + "/actuator/prometheus", String.class).getBody();
+        assert metrics != null;
+        assertTrue(metrics.contains("employee_request_db_round_trips"));
+        assertTrue(metrics.contains("employee_request_nodes_visited"));
+        assertTrue(metrics.contains("employee_service_seconds"));
+        assertTrue(metrics.contains("cache=\"employee\""));
+    }
+
+    @Test
+    public void testReportTraversalsAgree() {
+        try {
+            for (EmployeeServiceImpl.ReportTraversal traversal : EmployeeServiceImpl.ReportTraversal.values()) {
+                ReflectionTestUtils.setField(employeeService, "reportTraversal", traversal);
+                assertEquals(4, employeeService.getEmployeeReports("16a596ae-edd3-4847-99fe-c4518e82c86f").getNumberOfReports());
+                assertEquals(2, employeeService.getEmployeeReports("03aa1462-ffa9-4978-901b-7c001562cf6f").getNumberOfReports());
+            }
+        } finally {
+            ReflectionTestUtils.setField(employeeService, "reportTraversal", EmployeeServiceImpl.ReportTraversal.INDEX);
+        }
+    }
+
+    @Test
+    public void testRejectInvalidDirectReports() {
+        Employee manager = employeeService.createEmployee(createTestEmployee());
+        Employee report = employeeService.createEmployee(createTestEmployee());
+
+        manager.setDirectReports(List.of(reference(report)));
+        employeeService.updateEmployee(manager);
+
+        report.setDirectReports(List.of(reference(manager)));
+        assertInvalidDirectReports(report);
+        report.setDirectReports(List.of(reference(report)));
+        assertInvalidDirectReports(report);
+        manager.setDirectReports(List.of(reference(report), reference(report)));
+        assertInvalidDirectReports(manager);
+
+        report.setDirectReports(List.of(reference(manager)));
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        assertEquals(HttpStatus.BAD_REQUEST, restTemplate.exchange(employeeIdUrl,
+                HttpMethod.PUT,
+                new HttpEntity<Employee>(report, headers),
+                String.class,
+                report.getEmployeeId()).getStatusCode());
+    }
+
+    @Test
+    public void testReportTraversalsSurviveCyclesAndDeepChains() {
+        // a cycle written straight to the database, as if it predates the write time checks
+        Employee first = createTestEmployee();
+        first.setEmployeeId(UUID.randomUUID().toString());
+        Employee second = createTestEmployee();
+        second.setEmployeeId(UUID.randomUUID().toString());
+        first.setDirectReports(List.of(reference(second)));
+        second.setDirectReports(List.of(reference(first)));
+        employeeRepository.saveAll(List.of(first, second));
+        // such employees would have been added to the id filter when the application started
+        employeeIdFilter.add(first.getEmployeeId());
+        employeeIdFilter.add(second.getEmployeeId());
+
+        // deep enough to overflow the default thread stack with one frame per level
+        int chainLength = 20_000;
+        List<Employee> chain = new ArrayList<>();
+        String prefix = UUID.randomUUID() + "-";
+        for (int i = 0; i < chainLength; i++) {
+            Employee employee = createTestEmployee();
+            employee.setEmployeeId(prefix + i);
+            if (i < chainLength - 1) {
+                Employee next = new Employee();
+                next.setEmployeeId(prefix + (i + 1));
+                employee.setDirectReports(List.of(next));
+            }
+            chain.add(employee);
+        }
+        employeeService.upsertEmployees(chain);
+
+        try {
+            for (EmployeeServiceImpl.ReportTraversal traversal : EmployeeServiceImpl.ReportTraversal.values()) {
+                ReflectionTestUtils.setField(employeeService, "reportTraversal", traversal);
+                assertEquals(chainLength - 1, employeeService.getEmployeeReports(prefix + 0).getNumberOfReports());
+                if (traversal != EmployeeServiceImpl.ReportTraversal.INDEX) {
+                    // the index only follows writes made through the service
+                    assertEquals(1, employeeService.getEmployeeReports(first.getEmployeeId()).getNumberOfReports());
+                }
+            }
+            try (Stream<HierarchyNode> hierarchy = employeeService.getEmployeeHierarchy(first.getEmployeeId(), Integer.MAX_VALUE)) {
+                assertEquals(2, hierarchy.count());
+            }
+            try (Stream<HierarchyNode> hierarchy = employeeService.getEmployeeHierarchy(prefix + 0, Integer.MAX_VALUE)) {
+                assertEquals(chainLength, hierarchy.count());
+            }
+        } finally {
+            ReflectionTestUtils.setField(employeeService, "reportTraversal", EmployeeServiceImpl.ReportTraversal.INDEX);
+        }
+    }
+
     @Test
     public void testReadEmployeeCompensation() {
         Employee testEmployee = createTestEmployee();
@@ -139,6 +535,196 @@ public class EmployeeServiceImplTest {
         assertEmployeeEquivalence(readEmployee, updatedEmployee);
     }
 
+    @Test
+    public void testConditionalRequests() {
+        Employee createdEmployee = restTemplate.postForEntity(employeeUrl, createTestEmployee(), Employee.class).getBody();
+        assert createdEmployee != null;
+        String id = createdEmployee.getEmployeeId();
+
+        ResponseEntity<Employee> read = restTemplate.getForEntity(employeeIdUrl, Employee.class, id);
+        String eTag = read.getHeaders().getETag();
+        assertEquals("\"0\"", eTag);
+        assertEquals(HttpStatus.NOT_MODIFIED, conditionalGet(employeeIdUrl, id, eTag).getStatusCode());
+
+        Employee employee = read.getBody();
+        employee.setPosition("Development Manager");
+        ResponseEntity<Employee> updated = conditionalPut(employee, eTag);
+        assertEquals(HttpStatus.OK, updated.getStatusCode());
+        assertEquals(Long.valueOf(1), updated.getBody().getVersion());
+        assertEquals("\"1\"", updated.getHeaders().getETag());
+
+        // an update based on the version that has just been replaced loses
+        assertEquals(HttpStatus.PRECONDITION_FAILED, conditionalPut(employee, eTag).getStatusCode());
+        assertEquals(HttpStatus.OK, conditionalGet(employeeIdUrl, id, eTag).getStatusCode());
+
+        restTemplate.postForEntity(employeeCompensationUrl, createtestCompensation(), Compensation.class, id);
+        ResponseEntity<String> compensation = conditionalGet(employeeCompensationIdUrl, id, "\"1\"");
+        assertEquals(HttpStatus.OK, compensation.getStatusCode());
+        assertEquals("\"2\"", compensation.getHeaders().getETag());
+        assertEquals(HttpStatus.NOT_MODIFIED, conditionalGet(employeeCompensationIdUrl, id, "\"2\"").getStatusCode());
+    }
+
+    @Test
+    public void testWriteBehindCoalescesUpdates() {
+        Employee employee = employeeService.createEmployee(createTestEmployee());
+        String id = employee.getEmployeeId();
+
+        // a delay long enough that only the explicit flush writes to the repository
+        WriteBehindBuffer buffer = new WriteBehindBuffer(employeeRepository::bulkReplace,
+                flushed -> employeeCache.invalidate(flushed.getEmployeeId()), 1000, Duration.ofHours(1));
+        ReflectionTestUtils.setField(employeeService, "writeBehindBuffer", buffer);
+        try {
+            employee.setPosition("Development Manager");
+            assertEquals(Long.valueOf(1), employeeService.updateEmployee(employee, 0L).getVersion());
+            employeeService.createEmployeeCompensation(id, createtestCompensation());
+            employee.setPosition("Director");
+            assertEquals(Long.valueOf(3), employeeService.updateEmployee(employee).getVersion());
+
+            // reads see the pending state, the repository has not been written yet
+            Employee read = employeeService.getEmployee(id);
+            assertEquals("Director", read.getPosition());
+            assertNotNull(read.getCompensation());
+            assertEquals(Long.valueOf(3), employeeService.getEmployeeVersion(id));
+            assertEquals(Long.valueOf(0), employeeRepository.findByEmployeeId(id).getVersion());
+            assertEquals(HttpStatus.PRECONDITION_FAILED, conditionalPut(employee, "\"1\"").getStatusCode());
+
+            buffer.flush();
+            Employee stored = employeeRepository.findByEmployeeId(id);
+            assertEquals("Director", stored.getPosition());
+            assertEmployeeCompensationEquivalence(createtestCompensation(), stored.getCompensation());
+            assertEquals(Long.valueOf(3), stored.getVersion());
+            assertNull(buffer.get(id));
+
+            // the next write loads the stored employee, and loads it again when a flush completes while it is loading
+            Employee other = createTestEmployee();
+            other.setEmployeeId(employeeService.createEmployee(createTestEmployee()).getEmployeeId());
+            employeeService.updateEmployee(other);
+            AtomicInteger loads = new AtomicInteger();
+            Employee written = buffer.write(id, () -> {
+                if (loads.getAndIncrement() == 0) {
+                    buffer.flush();
+                }
+                return employeeRepository.findByEmployeeId(id);
+            }, base -> {
+                Employee next = new Employee();
+                next.setEmployeeId(id);
+                next.setPosition("Vice President");
+                return next;
+            });
+            assertEquals(2, loads.get());
+            assertEquals(Long.valueOf(4), written.getVersion());
+            assertNull(buffer.get(other.getEmployeeId()));
+        } finally {
+            ReflectionTestUtils.setField(employeeService, "writeBehindBuffer", null);
+            buffer.close();
+        }
+    }
+
+    private ResponseEntity<String> conditionalGet(String url, String id, String eTag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        return restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class, id);
+    }
+
+    private ResponseEntity<Employee> conditionalPut(Employee employee, String eTag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setIfMatch(eTag);
+        return restTemplate.exchange(employeeIdUrl, HttpMethod.PUT, new HttpEntity<>(employee, headers), Employee.class,
+                employee.getEmployeeId());
+    }
+
+    @Test
+    public void testBulkCreateEmployees() {
+        List<Employee> employees = List.of(createTestEmployee(), createTestEmployee());
+        BulkItemResult[] results = restTemplate.postForEntity(employeeBulkUrl, employees, BulkItemResult[].class).getBody();
+        assert results != null;
+        assertEquals(2, results.length);
+        for (BulkItemResult result : results) {
+            assertEquals(BulkItemResult.Status.CREATED, result.getStatus());
+            Employee readEmployee = restTemplate.getForEntity(employeeIdUrl, Employee.class, result.getEmployeeId()).getBody();
+            assert readEmployee != null;
+            assertEmployeeEquivalence(createTestEmployee(), readEmployee);
+        }
+    }
+
+    @Test
+    public void testBulkEmployeesAreWrittenChunkByChunkUpToAMalformedOne() throws Exception {
+        ReflectionTestUtils.setField(employeeService, "bulkChunkSize", 2);
+        try {
+            List<Employee> employees = List.of(createTestEmployee(), createTestEmployee(), createTestEmployee(),
+                    createTestEmployee(), createTestEmployee());
+            BulkItemResult[] results = restTemplate.postForEntity(employeeBulkUrl, employees, BulkItemResult[].class).getBody();
+            assert results != null;
+            assertEquals(5, results.length);
+            for (int i = 0; i < results.length; i++) {
+                assertEquals(i, results[i].getIndex());
+                assertEquals(BulkItemResult.Status.CREATED, results[i].getStatus());
+            }
+
+            // the employees before the malformed one are written and reported, the malformed one ends the response
+            long count = employeeRepository.count();
+            String employee = objectMapper.writeValueAsString(createTestEmployee());
+            String body = employee + "\n" + employee + "\n" + employee + "\n{\"firstName\":\n" + employee + "\n";
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.parseMediaType("application/x-ndjson"));
+            ResponseEntity<BulkItemResult[]> response = restTemplate.postForEntity(employeeBulkUrl,
+                    new HttpEntity<>(body, headers), BulkItemResult[].class);
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            results = response.getBody();
+            assert results != null;
+            assertEquals(4, results.length);
+            for (int i = 0; i < 3; i++) {
+                assertEquals(i, results[i].getIndex());
+                assertEquals(BulkItemResult.Status.CREATED, results[i].getStatus());
+                assertNotNull(employeeService.findEmployee(results[i].getEmployeeId()).orElse(null));
+            }
+            assertEquals(3, results[3].getIndex());
+            assertEquals(BulkItemResult.Status.FAILED, results[3].getStatus());
+            assertNull(results[3].getEmployeeId());
+            assertNotNull(results[3].getError());
+            assertEquals(count + 3, employeeRepository.count());
+        } finally {
+            ReflectionTestUtils.setField(employeeService, "bulkChunkSize", 1000);
+        }
+    }
+
+    @Test
+    public void testBulkUpsertEmployeesFromNdjson() {
+        Employee createdEmployee = restTemplate.postForEntity(employeeUrl, createTestEmployee(), Employee.class).getBody();
+        String body = "{\"employeeId\":\"" + createdEmployee.getEmployeeId() + "\",\"firstName\":\"Jane\",\"lastName\":\"Doe\"}\n"
+                + "{\"firstName\":\"Jim\",\"lastName\":\"Doe\"}\n";
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/x-ndjson"));
+        BulkItemResult[] results = restTemplate.postForEntity(employeeBulkUrl + "?mode=upsert",
+                new HttpEntity<>(body, headers), BulkItemResult[].class).getBody();
+        assert results != null;
+        assertEquals(2, results.length);
+        assertEquals(BulkItemResult.Status.UPSERTED, results[0].getStatus());
+        assertEquals(createdEmployee.getEmployeeId(), results[0].getEmployeeId());
+        assertNotNull(results[1].getEmployeeId());
+
+        Employee readEmployee = restTemplate.getForEntity(employeeIdUrl, Employee.class, createdEmployee.getEmployeeId()).getBody();
+        assert readEmployee != null;
+        assertEquals("Jane", readEmployee.getFirstName());
+    }
+
+    private void assertInvalidDirectReports(Employee employee) {
+        try {
+            employeeService.updateEmployee(employee);
+            fail("Expected the direct reports of " + employee.getEmployeeId() + " to be rejected");
+        } catch (InvalidDirectReportsException e) {
+            assertEquals(employee.getEmployeeId(), e.getEmployeeId());
+        }
+    }
+
+    // direct reports are stored as id-only references, which also keeps cyclic fixtures serializable
+    private static Employee reference(Employee employee) {
+        Employee reference = new Employee();
+        reference.setEmployeeId(employee.getEmployeeId());
+        return reference;
+    }
 
     private static void assertEmployeeEquivalence(Employee expected, Employee actual) {
         assertEquals(expected.getFirstName(), actual.getFirstName());
@@ -155,7 +741,7 @@ public class EmployeeServiceImplTest {
     public static Compensation createtestCompensation() {
         Compensation testCompensation = new Compensation();
         testCompensation.setEffectiveDate("01-01-2024");
-        testCompensation.setSalary("50000");
+        testCompensation.setSalary(new BigDecimal("50000"));
         return testCompensation;
     }
 